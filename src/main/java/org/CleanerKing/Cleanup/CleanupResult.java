@@ -0,0 +1,51 @@
+package org.CleanerKing.Cleanup;
+
+/**
+ * 一个清理任务的结果。
+ */
+public class CleanupResult {
+
+    /**
+     * 任务的最终状态。
+     */
+    public enum Status {
+        SUCCEEDED, FAILED, SKIPPED
+    }
+
+    private final CleanupTask task;
+    private final Status status;
+    private final long durationMillis;
+    private final DeleteStats stats;
+    private final Throwable error;
+
+    CleanupResult(CleanupTask task, Status status, long durationMillis, DeleteStats stats, Throwable error) {
+        this.task = task;
+        this.status = status;
+        this.durationMillis = durationMillis;
+        this.stats = stats;
+        this.error = error;
+    }
+
+    public CleanupTask getTask() {
+        return task;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * 删除统计，任务不删除文件或未执行时为 null。
+     */
+    public DeleteStats getStats() {
+        return stats;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+}
@@ -0,0 +1,162 @@
+package org.CleanerKing.Cleanup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 清理任务调度器：按依赖关系组成任务图，相互独立的任务并发执行。
+ *
+ * 总并发数与每个卷上的并发数各有上限，同一块磁盘上的目录不会同时被太多任务删除。
+ * 依赖的任务失败时，后续任务被跳过；依赖有环或依赖不在本次任务中的任务同样被跳过。
+ * 调度只在调用线程中进行，工作线程只执行任务本身。
+ */
+public class CleanupScheduler {
+
+    private final int maxConcurrent;
+    private final int perVolumeLimit;
+
+    /**
+     * @param maxConcurrent  同时执行的任务数上限
+     * @param perVolumeLimit 同一卷上同时执行的任务数上限
+     */
+    public CleanupScheduler(int maxConcurrent, int perVolumeLimit) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.perVolumeLimit = Math.max(1, perVolumeLimit);
+    }
+
+    /**
+     * 执行全部任务并等待结束。
+     *
+     * @return 与 tasks 顺序一致的结果
+     */
+    public List<CleanupResult> run(List<CleanupTask> tasks) {
+        Map<CleanupTask, CleanupResult> results = new IdentityHashMap<>();
+        Map<CleanupTask, Integer> waitingOn = new IdentityHashMap<>();
+        Map<CleanupTask, List<CleanupTask>> dependents = new IdentityHashMap<>();
+        Deque<CleanupTask> ready = new ArrayDeque<>();
+        for (CleanupTask t : tasks) {
+            waitingOn.put(t, 0);
+            dependents.put(t, new ArrayList<>());
+        }
+        for (CleanupTask t : tasks) {
+            for (CleanupTask dep : t.getDependencies()) {
+                if (dependents.containsKey(dep)) {
+                    dependents.get(dep).add(t);
+                    waitingOn.put(t, waitingOn.get(t) + 1);
+                } else {
+                    // 依赖不在本次任务中，无法保证其已完成
+                    waitingOn.put(t, -1);
+                }
+            }
+        }
+        for (CleanupTask t : tasks) {
+            int n = waitingOn.get(t);
+            if (n == 0) {
+                ready.add(t);
+            } else if (n < 0) {
+                skip(t, results, dependents);
+            }
+        }
+
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(maxConcurrent, Math.max(1, tasks.size())), r -> {
+            Thread th = new Thread(r, "cleanup-" + threadId.incrementAndGet());
+            th.setDaemon(true);
+            return th;
+        });
+        CompletionService<CleanupResult> completion = new ExecutorCompletionService<>(pool);
+        Map<String, Integer> runningPerVolume = new HashMap<>();
+        int running = 0;
+        try {
+            while (true) {
+                // 在总并发与卷并发允许的范围内启动就绪的任务
+                for (Iterator<CleanupTask> it = ready.iterator(); it.hasNext() && running < maxConcurrent; ) {
+                    CleanupTask t = it.next();
+                    String volume = t.getVolume();
+                    int onVolume = volume == null ? 0 : runningPerVolume.getOrDefault(volume, 0);
+                    if (onVolume >= perVolumeLimit) continue;
+                    it.remove();
+                    if (volume != null) {
+                        runningPerVolume.put(volume, onVolume + 1);
+                    }
+                    running++;
+                    completion.submit(() -> execute(t));
+                }
+                if (running == 0) {
+                    break;
+                }
+
+                CleanupResult result;
+                try {
+                    result = completion.take().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    // execute() 自身捕获所有异常，不会到达这里
+                    throw new IllegalStateException(e.getCause());
+                }
+                running--;
+                CleanupTask done = result.getTask();
+                if (done.getVolume() != null) {
+                    runningPerVolume.merge(done.getVolume(), -1, Integer::sum);
+                }
+                results.put(done, result);
+                for (CleanupTask next : dependents.get(done)) {
+                    if (result.getStatus() != CleanupResult.Status.SUCCEEDED) {
+                        skip(next, results, dependents);
+                    } else if (!results.containsKey(next)) {
+                        int n = waitingOn.get(next) - 1;
+                        waitingOn.put(next, n);
+                        if (n == 0) {
+                            ready.add(next);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<CleanupResult> ordered = new ArrayList<>(tasks.size());
+        for (CleanupTask t : tasks) {
+            CleanupResult r = results.get(t);
+            // 未执行的任务：依赖有环，或调度被中断
+            ordered.add(r != null ? r : new CleanupResult(t, CleanupResult.Status.SKIPPED, 0, null, null));
+        }
+        return ordered;
+    }
+
+    private static CleanupResult execute(CleanupTask task) {
+        long start = System.nanoTime();
+        try {
+            DeleteStats stats = task.getAction().run();
+            return new CleanupResult(task, CleanupResult.Status.SUCCEEDED, (System.nanoTime() - start) / 1_000_000, stats, null);
+        } catch (Exception e) {
+            return new CleanupResult(task, CleanupResult.Status.FAILED, (System.nanoTime() - start) / 1_000_000, null, e);
+        }
+    }
+
+    /**
+     * 跳过任务及所有依赖它的任务。
+     */
+    private static void skip(CleanupTask task, Map<CleanupTask, CleanupResult> results, Map<CleanupTask, List<CleanupTask>> dependents) {
+        if (results.containsKey(task)) return;
+        results.put(task, new CleanupResult(task, CleanupResult.Status.SKIPPED, 0, null, null));
+        for (CleanupTask next : dependents.get(task)) {
+            skip(next, results, dependents);
+        }
+    }
+}
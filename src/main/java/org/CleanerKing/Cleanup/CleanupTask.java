@@ -0,0 +1,77 @@
+package org.CleanerKing.Cleanup;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 清理任务：一个清理目标，带所在卷与依赖的其他任务，由 CleanupScheduler 调度。
+ */
+public class CleanupTask {
+
+    /**
+     * 任务的执行内容。
+     */
+    public interface Action {
+        /**
+         * @return 删除统计，不删除文件的任务（如刷新 DNS）返回 null
+         */
+        DeleteStats run() throws Exception;
+    }
+
+    private final String name;
+    private final String volume;
+    private final Action action;
+    private final List<CleanupTask> dependencies = new ArrayList<>();
+
+    /**
+     * @param name   任务名称，用于报告
+     * @param volume 所在卷，同一卷上的任务受并发上限约束；null 表示不占用磁盘卷
+     * @param action 执行内容
+     */
+    public CleanupTask(String name, String volume, Action action) {
+        this.name = name;
+        this.volume = volume;
+        this.action = action;
+    }
+
+    /**
+     * 本任务在 other 成功完成后才开始；other 失败时本任务被跳过。
+     */
+    public CleanupTask dependsOn(CleanupTask other) {
+        dependencies.add(other);
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getVolume() {
+        return volume;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public List<CleanupTask> getDependencies() {
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    /**
+     * 取路径所在的卷（根目录，如 “C:\”），无法解析时返回 null。
+     */
+    public static String volumeOf(String path) {
+        if (path == null) return null;
+        try {
+            Path root = Paths.get(path).toAbsolutePath().getRoot();
+            return root == null ? null : root.toString().toUpperCase();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+}
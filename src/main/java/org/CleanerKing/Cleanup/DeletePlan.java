@@ -0,0 +1,129 @@
+package org.CleanerKing.Cleanup;
+
+import org.CleanerKing.FileScan.PathTable;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 删除计划：预估时列出的一个目标下的全部文件与目录，不删除任何内容。
+ *
+ * 路径保存在 PathTable 中（父编号 + 名称编号），文件大小保存在基本类型数组中。
+ * 目录按后序记录：子目录总在父目录之前，按顺序删除即可自底向上。
+ * 随后的清理可直接按计划删除，不必再次遍历。每个目录同时记下列出时的修改时间，
+ * 删除前据此确认目录未被改动或替换为链接。
+ */
+public class DeletePlan {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Path root;
+    private final PathTable paths = new PathTable();
+    private final int rootId;
+    private final long createdMillis = System.currentTimeMillis();
+
+    private int[] fileIds = new int[INITIAL_CAPACITY];
+    private long[] fileSizes = new long[INITIAL_CAPACITY];
+    private int fileCount;
+    private long totalBytes;
+    private int[] directoryIds = new int[INITIAL_CAPACITY];
+    private long[] directoryMtimes = new long[INITIAL_CAPACITY];
+    private int directoryCount;
+    private volatile boolean skippedProtected;
+    private volatile int failures;
+
+    DeletePlan(Path root) {
+        this.root = root.toAbsolutePath();
+        this.rootId = paths.add(this.root);
+    }
+
+    PathTable getPaths() {
+        return paths;
+    }
+
+    int getRootId() {
+        return rootId;
+    }
+
+    synchronized void addFiles(int[] ids, long[] sizes, int count) {
+        if (fileCount + count > fileIds.length) {
+            int capacity = Math.max(fileIds.length * 2, fileCount + count);
+            fileIds = Arrays.copyOf(fileIds, capacity);
+            fileSizes = Arrays.copyOf(fileSizes, capacity);
+        }
+        System.arraycopy(ids, 0, fileIds, fileCount, count);
+        System.arraycopy(sizes, 0, fileSizes, fileCount, count);
+        fileCount += count;
+        for (int i = 0; i < count; i++) {
+            totalBytes += sizes[i];
+        }
+    }
+
+    synchronized void addDirectory(int id, long mtime) {
+        if (directoryCount == directoryIds.length) {
+            directoryIds = Arrays.copyOf(directoryIds, directoryCount * 2);
+            directoryMtimes = Arrays.copyOf(directoryMtimes, directoryCount * 2);
+        }
+        directoryIds[directoryCount] = id;
+        directoryMtimes[directoryCount] = mtime;
+        directoryCount++;
+    }
+
+    void markSkippedProtected() {
+        skippedProtected = true;
+    }
+
+    synchronized void failed() {
+        failures++;
+    }
+
+    synchronized int getFileId(int index) {
+        return fileIds[index];
+    }
+
+    synchronized long getFileSize(int index) {
+        return fileSizes[index];
+    }
+
+    synchronized int getDirectoryId(int index) {
+        return directoryIds[index];
+    }
+
+    /**
+     * 目录在列出前的修改时间（毫秒）。
+     */
+    synchronized long getDirectoryMtime(int index) {
+        return directoryMtimes[index];
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public synchronized int getFileCount() {
+        return fileCount;
+    }
+
+    public synchronized int getDirectoryCount() {
+        return directoryCount;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 列出时无法访问的条目数，这些条目不计入预估。
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    public boolean isSkippedProtected() {
+        return skippedProtected;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+}
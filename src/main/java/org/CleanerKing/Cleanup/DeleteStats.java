@@ -0,0 +1,102 @@
+package org.CleanerKing.Cleanup;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次删除的统计，可由多个删除线程同时累加。
+ */
+public class DeleteStats {
+
+    private final AtomicLong filesDeleted = new AtomicLong();
+    private final AtomicLong directoriesDeleted = new AtomicLong();
+    private final AtomicLong bytesFreed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long elapsedMillis;
+    private volatile boolean skippedProtected;
+    private volatile boolean deferred;
+
+    void fileDeleted(long size) {
+        filesDeleted.incrementAndGet();
+        bytesFreed.addAndGet(size);
+    }
+
+    void directoryDeleted() {
+        directoriesDeleted.incrementAndGet();
+    }
+
+    void failed() {
+        failures.incrementAndGet();
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    void markSkippedProtected() {
+        skippedProtected = true;
+    }
+
+    /**
+     * 内容已移交后台删除时返回的统计。
+     */
+    public static DeleteStats deferred() {
+        DeleteStats stats = new DeleteStats();
+        stats.deferred = true;
+        return stats;
+    }
+
+    /**
+     * 累加另一次删除的统计，耗时取两者之和。
+     */
+    public void add(DeleteStats other) {
+        filesDeleted.addAndGet(other.getFilesDeleted());
+        directoriesDeleted.addAndGet(other.getDirectoriesDeleted());
+        bytesFreed.addAndGet(other.getBytesFreed());
+        failures.addAndGet(other.getFailures());
+        elapsedMillis += other.getElapsedMillis();
+        skippedProtected |= other.isSkippedProtected();
+    }
+
+    public long getFilesDeleted() {
+        return filesDeleted.get();
+    }
+
+    public long getDirectoriesDeleted() {
+        return directoriesDeleted.get();
+    }
+
+    public long getBytesFreed() {
+        return bytesFreed.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 是否遇到受保护的目录而跳过了它。
+     */
+    public boolean isSkippedProtected() {
+        return skippedProtected;
+    }
+
+    /**
+     * 内容已移入墓碑目录，由后台线程删除，统计中不包含这些文件。
+     */
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    @Override
+    public String toString() {
+        if (deferred) {
+            return "已移入后台删除";
+        }
+        return String.format("删除 %d 个文件、%d 个目录，释放 %.2f MB，失败 %d 个，耗时 %d 毫秒",
+                getFilesDeleted(), getDirectoriesDeleted(), getBytesFreed() / (1024.0 * 1024.0), getFailures(), elapsedMillis);
+    }
+}
@@ -0,0 +1,166 @@
+package org.CleanerKing.Cleanup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量强制删除：先逐个删除，收集失败的文件后一次查找全部占用进程，
+ * 每个进程最多终止一次，再按指数退避重试删除队列中剩余的文件。
+ *
+ * 查找与终止进程均可替换，非 Windows 环境下可用桩实现验证流程。
+ */
+public class ForceDeleter {
+
+    /**
+     * 终止占用文件的进程。
+     */
+    public interface ProcessKiller {
+        void kill(int pid) throws IOException, InterruptedException;
+    }
+
+    /**
+     * 删除进度回调，在调用 delete() 的线程中执行。
+     */
+    public interface Listener {
+        /**
+         * @param forced 是否在终止占用进程后才删除成功
+         */
+        void onDeleted(Path file, boolean forced);
+
+        void onMissing(Path file);
+
+        void onKilled(int pid, Set<Path> lockedFiles);
+
+        void onFailed(Path file, IOException error);
+    }
+
+    private final LockHolderLookup lookup;
+    private final ProcessKiller killer;
+    private final Set<Integer> protectedPids;
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    /**
+     * @param lookup               占用进程查找
+     * @param killer               进程终止
+     * @param protectedPids        不允许终止的进程（如本程序自身）
+     * @param maxRetries           终止进程后重试删除的最多轮数
+     * @param initialBackoffMillis 第一轮重试前的等待时间，此后每轮加倍
+     * @param maxBackoffMillis     每轮等待时间的上限
+     */
+    public ForceDeleter(LockHolderLookup lookup, ProcessKiller killer, Set<Integer> protectedPids,
+                        int maxRetries, long initialBackoffMillis, long maxBackoffMillis) {
+        this.lookup = lookup;
+        this.killer = killer;
+        this.protectedPids = protectedPids;
+        this.maxRetries = Math.max(1, maxRetries);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * 删除全部文件。
+     *
+     * @return 删除统计，失败数为最终仍未删除的文件数
+     */
+    public DeleteStats delete(Collection<Path> files, Listener listener) throws InterruptedException {
+        long start = System.nanoTime();
+        DeleteStats stats = new DeleteStats();
+        Map<Path, IOException> failed = new LinkedHashMap<>();
+        for (Path file : new LinkedHashSet<>(files)) {
+            IOException error = tryDelete(file, false, stats, listener);
+            if (error != null) {
+                failed.put(file, error);
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            killHolders(failed.keySet(), listener);
+            retry(failed, stats, listener);
+        }
+        for (Map.Entry<Path, IOException> e : failed.entrySet()) {
+            stats.failed();
+            listener.onFailed(e.getKey(), e.getValue());
+        }
+        stats.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return stats;
+    }
+
+    /**
+     * 一次查找全部占用进程，每个进程只终止一次。查找失败时仍按退避重试，
+     * 以便短暂占用（杀毒扫描、索引服务）自行释放的文件可以删除。
+     */
+    private void killHolders(Collection<Path> locked, Listener listener) throws InterruptedException {
+        Map<Path, Set<Integer>> holders;
+        try {
+            holders = lookup.findHolders(new ArrayList<>(locked));
+        } catch (IOException e) {
+            return;
+        }
+        Map<Integer, Set<Path>> byPid = new LinkedHashMap<>();
+        for (Map.Entry<Path, Set<Integer>> e : holders.entrySet()) {
+            for (Integer pid : e.getValue()) {
+                if (protectedPids.contains(pid)) continue;
+                byPid.computeIfAbsent(pid, k -> new LinkedHashSet<>()).add(e.getKey());
+            }
+        }
+        for (Map.Entry<Integer, Set<Path>> e : byPid.entrySet()) {
+            try {
+                killer.kill(e.getKey());
+                listener.onKilled(e.getKey(), e.getValue());
+            } catch (IOException ignore) {
+                // 进程可能已退出，删除重试时再判断
+            }
+        }
+    }
+
+    private void retry(Map<Path, IOException> failed, DeleteStats stats, Listener listener) throws InterruptedException {
+        Deque<Path> queue = new ArrayDeque<>(failed.keySet());
+        long backoff = initialBackoffMillis;
+        for (int round = 0; round < maxRetries && !queue.isEmpty(); round++) {
+            // 进程退出后句柄释放需要时间，等待随轮数加倍
+            Thread.sleep(backoff);
+            backoff = Math.min(backoff * 2, maxBackoffMillis);
+            for (int n = queue.size(); n > 0; n--) {
+                Path file = queue.poll();
+                IOException error = tryDelete(file, true, stats, listener);
+                if (error == null) {
+                    failed.remove(file);
+                } else {
+                    failed.put(file, error);
+                    queue.add(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 删除失败时的异常；已删除或文件不存在时返回 null
+     */
+    private static IOException tryDelete(Path file, boolean forced, DeleteStats stats, Listener listener) {
+        try {
+            long size = Files.size(file);
+            Files.delete(file);
+            stats.fileDeleted(size);
+            listener.onDeleted(file, forced);
+            return null;
+        } catch (NoSuchFileException e) {
+            listener.onMissing(file);
+            return null;
+        } catch (IOException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.CleanerKing.Cleanup;
+
+import org.CleanerKing.Exec.CommandResult;
+import org.CleanerKing.Exec.ProcessRunner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 用 Sysinternals handle.exe 查找占用文件的进程。
+ *
+ * 不按文件逐个运行 handle.exe，而是运行一次列出全部进程的文件句柄，
+ * 逐行解析输出并与待删除文件比对，输出不整体保存在内存中。
+ */
+public class HandleLockHolderLookup implements LockHolderLookup {
+
+    // 进程标题行：“explorer.exe pid: 1234 DOMAIN\\user”
+    private static final Pattern PROCESS_LINE = Pattern.compile("^\\S.*?\\s+pid:\\s*(\\d+)\\b.*$");
+    // 句柄行：“  4C: File  (RW-)   C:\\path\\file”
+    private static final Pattern FILE_LINE = Pattern.compile("^\\s*[0-9A-Fa-f]+:\\s+File\\s+(?:\\([^)]*\\)\\s+)?(.+?)\\s*$");
+
+    private final ProcessRunner runner;
+    private final String handleExe;
+    private final long timeoutMillis;
+
+    /**
+     * @param runner        执行 handle.exe 的进程服务
+     * @param handleExe     handle.exe 的路径或命令名
+     * @param timeoutMillis 一次列出的超时时间
+     */
+    public HandleLockHolderLookup(ProcessRunner runner, String handleExe, long timeoutMillis) {
+        this.runner = runner;
+        this.handleExe = handleExe;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Map<Path, Set<Integer>> findHolders(Collection<Path> paths) throws IOException, InterruptedException {
+        // Windows 路径不区分大小写
+        Map<String, Path> wanted = new HashMap<>();
+        for (Path p : paths) {
+            wanted.put(key(p.toAbsolutePath().toString()), p);
+        }
+        Map<Path, Set<Integer>> holders = new HashMap<>();
+        int[] currentPid = {-1};
+        // 标准输出与标准错误由不同线程读取，解析状态需同步
+        CommandResult result = runner.run(Arrays.asList(handleExe, "-accepteula", "-nobanner"), timeoutMillis, line -> {
+            synchronized (holders) {
+                Matcher m = PROCESS_LINE.matcher(line);
+                if (m.matches()) {
+                    currentPid[0] = Integer.parseInt(m.group(1));
+                    return;
+                }
+                if (currentPid[0] < 0) return;
+                Matcher f = FILE_LINE.matcher(line);
+                if (f.matches()) {
+                    Path target = wanted.get(key(f.group(1)));
+                    if (target != null) {
+                        holders.computeIfAbsent(target, k -> new LinkedHashSet<>()).add(currentPid[0]);
+                    }
+                }
+            }
+        });
+        if (!result.isSuccess() && !result.isTimedOut() && holders.isEmpty()) {
+            throw new IOException("handle.exe 执行失败，退出代码: " + result.getExitCode());
+        }
+        if (result.isTimedOut()) {
+            throw new IOException("handle.exe 执行超时");
+        }
+        synchronized (holders) {
+            return holders;
+        }
+    }
+
+    private static String key(String path) {
+        return path.toLowerCase(Locale.ROOT);
+    }
+}
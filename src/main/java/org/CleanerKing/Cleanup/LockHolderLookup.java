@@ -0,0 +1,19 @@
+package org.CleanerKing.Cleanup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 查找占用文件的进程。一次调用查询全部文件，实现应只列出一次系统句柄。
+ */
+public interface LockHolderLookup {
+
+    /**
+     * @param paths 删除失败的文件（绝对路径）
+     * @return 每个被占用文件对应的进程号，未被占用或无法确定的文件不出现在结果中
+     */
+    Map<Path, Set<Integer>> findHolders(Collection<Path> paths) throws IOException, InterruptedException;
+}
@@ -0,0 +1,437 @@
+package org.CleanerKing.Cleanup;
+
+import org.CleanerKing.FileScan.PathTable;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+/**
+ * 并行递归删除：基于 Fork/Join，兄弟子目录并行删除，大目录中的文件按批分给多个线程，
+ * 目录在其内容全部删除后自底向上删除。
+ *
+ * 不跟随符号链接与目录联接，链接本身作为文件删除。每进入一个目录前都检查是否受保护，
+ * 受保护的目录连同其内容被跳过。并行度为 1 时等同于串行删除。
+ *
+ * plan() 以同样的规则只列出不删除，得到的 DeletePlan 可交给 execute() 直接删除，不必再次遍历。
+ * 计划中的路径在列出后可能被改动，execute() 删除前逐个确认目录仍是原来的普通目录。
+ */
+public class ParallelDeleter {
+
+    /**
+     * 删除过程的回调，可能在多个删除线程中同时调用。
+     */
+    public interface Listener {
+        void onDeleted(Path path, boolean directory);
+
+        void onFailed(Path path, IOException e);
+
+        void onProtectedSkipped(Path dir);
+    }
+
+    // 每个文件删除任务包含的文件数
+    private static final int FILE_BATCH_SIZE = 256;
+
+    private final int parallelism;
+    private final int threadPriority;
+    private final Predicate<Path> isProtected;
+    private final Listener listener;
+
+    /**
+     * @param parallelism 删除线程数，不大于 0 时使用处理器核数
+     * @param isProtected 判断目录是否受保护
+     * @param listener    删除回调
+     */
+    public ParallelDeleter(int parallelism, Predicate<Path> isProtected, Listener listener) {
+        this(parallelism, Thread.NORM_PRIORITY, isProtected, listener);
+    }
+
+    /**
+     * @param threadPriority 删除线程的优先级，后台清理时使用较低优先级
+     */
+    public ParallelDeleter(int parallelism, int threadPriority, Predicate<Path> isProtected, Listener listener) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.threadPriority = threadPriority;
+        this.isProtected = isProtected;
+        this.listener = listener;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 删除 root 及其全部内容，root 为文件或链接时只删除它本身。
+     */
+    public DeleteStats delete(Path root) {
+        DeleteStats stats = new DeleteStats();
+        long start = System.nanoTime();
+        walk(root, stats, null);
+        stats.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return stats;
+    }
+
+    /**
+     * 遍历删除 root，结果累加到 stats。
+     *
+     * @param reported 已计为失败的路径，其中的路径再次失败时不重复计数与回调；为 null 时每次失败都计数
+     */
+    private void walk(Path root, DeleteStats stats, Set<Path> reported) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            // 不存在或无法访问
+            return;
+        }
+        if (isDirectory(attrs)) {
+            ForkJoinPool pool = newPool();
+            try {
+                pool.invoke(new DirectoryTask(root, stats, null, -1, reported));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            deleteFile(root, attrs.size(), stats, reported);
+        }
+    }
+
+    /**
+     * 以与 delete() 相同的规则并行列出多个目录，不删除任何内容。
+     *
+     * @return 与 roots 顺序一致的删除计划，不存在或不是目录的根得到空计划
+     */
+    public List<DeletePlan> plan(List<Path> roots) {
+        List<DeletePlan> plans = new ArrayList<>(roots.size());
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (Path root : roots) {
+            DeletePlan plan = new DeletePlan(root);
+            plans.add(plan);
+            try {
+                if (isDirectory(Files.readAttributes(plan.getRoot(), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS))) {
+                    tasks.add(new DirectoryTask(plan.getRoot(), null, plan, plan.getRootId(), null));
+                }
+            } catch (IOException e) {
+                // 不存在或无法访问，计划为空
+            }
+        }
+        ForkJoinPool pool = newPool();
+        try {
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        return plans;
+    }
+
+    /**
+     * 按计划删除：文件分批并行删除，目录按后序依次删除；计划之后新出现的内容再遍历一次删除。
+     * 计划中已不存在的文件直接跳过，不计为失败。再次遍历时遇到已经失败过的路径（如被占用的文件）
+     * 不重复计数，每个路径最多计一次失败。
+     */
+    public DeleteStats execute(DeletePlan plan) {
+        DeleteStats stats = new DeleteStats();
+        Set<Path> reported = ConcurrentHashMap.newKeySet();
+        long start = System.nanoTime();
+        if (!isUnchanged(plan)) {
+            // 计划已不可信：重新遍历，遍历不会进入链接与联接
+            walk(plan.getRoot(), stats, reported);
+            stats.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            return stats;
+        }
+        ForkJoinPool pool = newPool();
+        try {
+            pool.invoke(new PlannedFilesTask(plan, 0, plan.getFileCount(), stats, reported));
+        } finally {
+            pool.shutdown();
+        }
+        PathTable paths = plan.getPaths();
+        for (int i = 0, n = plan.getDirectoryCount(); i < n; i++) {
+            Path dir = paths.toPath(plan.getDirectoryId(i));
+            try {
+                Files.delete(dir);
+                stats.directoryDeleted();
+                listener.onDeleted(dir, true);
+            } catch (NoSuchFileException e) {
+                // 已被删除
+            } catch (DirectoryNotEmptyException e) {
+                // 计划之后新增了内容或其中有删除失败的文件，留给下面的遍历
+            } catch (IOException e) {
+                failed(dir, e, stats, reported);
+            }
+        }
+        if (Files.exists(plan.getRoot(), LinkOption.NOFOLLOW_LINKS)) {
+            walk(plan.getRoot(), stats, reported);
+        }
+        stats.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return stats;
+    }
+
+    /**
+     * 删除前确认计划中的每个目录仍是普通目录（不是链接或联接等重解析点）、不受保护，
+     * 且修改时间与列出时相同；任一目录不符时整个计划作废。
+     */
+    private boolean isUnchanged(DeletePlan plan) {
+        PathTable paths = plan.getPaths();
+        for (int i = 0, n = plan.getDirectoryCount(); i < n; i++) {
+            Path dir = paths.toPath(plan.getDirectoryId(i));
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (!isDirectory(attrs) || isProtected.test(dir)
+                        || attrs.lastModifiedTime().toMillis() != plan.getDirectoryMtime(i)) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ForkJoinPool newPool() {
+        return new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setPriority(threadPriority);
+            return t;
+        }, null, false);
+    }
+
+    private static boolean isDirectory(BasicFileAttributes attrs) {
+        // 目录联接等重解析点报告为 other，不进入
+        return attrs.isDirectory() && !attrs.isSymbolicLink() && !attrs.isOther();
+    }
+
+    private void deleteFile(Path file, long size, DeleteStats stats, Set<Path> reported) {
+        try {
+            Files.delete(file);
+            stats.fileDeleted(size);
+            listener.onDeleted(file, false);
+        } catch (IOException e) {
+            failed(file, e, stats, reported);
+        }
+    }
+
+    /**
+     * 记录一次失败；reported 中已有该路径时不再计数与回调。
+     */
+    private void failed(Path path, IOException e, DeleteStats stats, Set<Path> reported) {
+        if (reported != null && !reported.add(path)) {
+            return;
+        }
+        stats.failed();
+        listener.onFailed(path, e);
+    }
+
+    /**
+     * 列出一个目录，子目录与文件批次作为子任务并行执行，全部完成后删除目录本身。
+     * 带计划时只把条目记入计划，不删除。
+     */
+    private class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final DeleteStats stats;
+        private final DeletePlan plan;
+        private final int dirId;
+        private final Set<Path> reported;
+
+        DirectoryTask(Path dir, DeleteStats stats, DeletePlan plan, int dirId, Set<Path> reported) {
+            this.dir = dir;
+            this.stats = stats;
+            this.plan = plan;
+            this.dirId = dirId;
+            this.reported = reported;
+        }
+
+        @Override
+        protected void compute() {
+            long mtime = 0;
+            if (plan != null) {
+                // 在列出之前记下修改时间，列出期间的改动也会使计划作废
+                try {
+                    mtime = Files.getLastModifiedTime(dir, LinkOption.NOFOLLOW_LINKS).toMillis();
+                } catch (IOException e) {
+                    failed(dir, e);
+                    return;
+                }
+            }
+            if (isProtected.test(dir)) {
+                // 预估时只记录，不提示
+                if (plan != null) {
+                    plan.markSkippedProtected();
+                } else {
+                    stats.markSkippedProtected();
+                    listener.onProtectedSkipped(dir);
+                }
+                return;
+            }
+            List<RecursiveAction> tasks = new ArrayList<>();
+            FileBatchTask batch = null;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path p : stream) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        failed(p, e);
+                        continue;
+                    }
+                    if (isDirectory(attrs)) {
+                        int childId = plan != null ? plan.getPaths().child(dirId, p.getFileName().toString()) : -1;
+                        tasks.add(new DirectoryTask(p, stats, plan, childId, reported));
+                    } else if (plan != null) {
+                        if (batch == null) {
+                            batch = new FileBatchTask(stats, reported);
+                        }
+                        batch.add(p, attrs.size());
+                        if (batch.count == FILE_BATCH_SIZE) {
+                            batch.record(plan, dirId);
+                            batch = null;
+                        }
+                    } else {
+                        if (batch == null) {
+                            batch = new FileBatchTask(stats, reported);
+                            tasks.add(batch);
+                        }
+                        batch.add(p, attrs.size());
+                        if (batch.count == FILE_BATCH_SIZE) {
+                            batch = null;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                failed(dir, e);
+                return;
+            }
+            if (plan != null && batch != null) {
+                batch.record(plan, dirId);
+            }
+            invokeAll(tasks);
+
+            if (plan != null) {
+                plan.addDirectory(dirId, mtime);
+                return;
+            }
+            try {
+                Files.delete(dir);
+                stats.directoryDeleted();
+                listener.onDeleted(dir, true);
+            } catch (IOException e) {
+                ParallelDeleter.this.failed(dir, e, stats, reported);
+            }
+        }
+
+        private void failed(Path p, IOException e) {
+            if (plan != null) {
+                plan.failed();
+            } else {
+                ParallelDeleter.this.failed(p, e, stats, reported);
+            }
+        }
+    }
+
+    /**
+     * 删除同一目录下的一批文件。
+     */
+    private class FileBatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DeleteStats stats;
+        private final Set<Path> reported;
+        private final Path[] files = new Path[FILE_BATCH_SIZE];
+        private final long[] sizes = new long[FILE_BATCH_SIZE];
+        private int count;
+
+        FileBatchTask(DeleteStats stats, Set<Path> reported) {
+            this.stats = stats;
+            this.reported = reported;
+        }
+
+        void add(Path file, long size) {
+            files[count] = file;
+            sizes[count] = size;
+            count++;
+        }
+
+        /**
+         * 把这批文件记入计划而不删除。
+         */
+        void record(DeletePlan plan, int dirId) {
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = plan.getPaths().child(dirId, files[i].getFileName().toString());
+            }
+            plan.addFiles(ids, sizes, count);
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = 0; i < count; i++) {
+                deleteFile(files[i], sizes[i], stats, reported);
+            }
+        }
+    }
+
+    /**
+     * 按计划删除文件，区间较大时二分为子任务并行执行。
+     */
+    private class PlannedFilesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DeletePlan plan;
+        private final int from;
+        private final int to;
+        private final DeleteStats stats;
+        private final Set<Path> reported;
+
+        PlannedFilesTask(DeletePlan plan, int from, int to, DeleteStats stats, Set<Path> reported) {
+            this.plan = plan;
+            this.from = from;
+            this.to = to;
+            this.stats = stats;
+            this.reported = reported;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > FILE_BATCH_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PlannedFilesTask(plan, from, mid, stats, reported), new PlannedFilesTask(plan, mid, to, stats, reported));
+                return;
+            }
+            PathTable paths = plan.getPaths();
+            for (int i = from; i < to; i++) {
+                Path file = paths.toPath(plan.getFileId(i));
+                try {
+                    Files.delete(file);
+                    stats.fileDeleted(plan.getFileSize(i));
+                    listener.onDeleted(file, false);
+                } catch (NoSuchFileException e) {
+                    // 计划之后已被删除
+                } catch (IOException e) {
+                    failed(file, e, stats, reported);
+                }
+            }
+        }
+    }
+}
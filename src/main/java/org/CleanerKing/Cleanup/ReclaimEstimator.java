@@ -0,0 +1,63 @@
+package org.CleanerKing.Cleanup;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可释放空间预估：并行列出各清理目标，得到文件数与字节数，不删除任何内容。
+ *
+ * 列出的删除计划按目标目录缓存，随后的清理在计划未过期时直接按计划删除，不再遍历。
+ * 每个计划只使用一次。
+ */
+public class ReclaimEstimator {
+
+    private final long maxAgeMillis;
+    private final Map<Path, DeletePlan> cache = new HashMap<>();
+
+    /**
+     * @param maxAgeMillis 计划的有效期，超过后清理时重新遍历
+     */
+    public ReclaimEstimator(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * 并行列出全部目标并缓存结果。
+     *
+     * @return 与 roots 顺序一致的删除计划
+     */
+    public List<DeletePlan> estimate(ParallelDeleter deleter, List<Path> roots) {
+        List<DeletePlan> plans = deleter.plan(roots);
+        synchronized (cache) {
+            for (DeletePlan plan : plans) {
+                cache.put(plan.getRoot(), plan);
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * 取出目录的缓存计划；没有或已过期时返回 null。
+     */
+    public DeletePlan take(Path root) {
+        DeletePlan plan;
+        synchronized (cache) {
+            plan = cache.remove(root.toAbsolutePath());
+        }
+        if (plan == null || System.currentTimeMillis() - plan.getCreatedMillis() > maxAgeMillis) {
+            return null;
+        }
+        return plan;
+    }
+
+    /**
+     * 丢弃全部缓存的计划。
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.CleanerKing.Cleanup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * 快速清空目录（“墓碑交换”）：把目录改名为同一父目录下的墓碑目录（同一卷上改名为 O(1) 操作），
+ * 立即重建空目录，然后在低优先级后台线程中删除墓碑。
+ *
+ * 待删除的墓碑记录在清单文件中，程序中途退出时，下次启动调用 resumePending() 继续删除。
+ * 只删除名称中带有墓碑标记的目录，清单被改动也不会删除其他目录。
+ */
+public class TrashSwap {
+
+    public static final String TOMBSTONE_MARKER = ".cleanerking-trash-";
+
+    private final Path pendingFile;
+    private final Predicate<Path> isProtected;
+    private final ParallelDeleter.Listener listener;
+    private final ExecutorService purger;
+    // 尚未删除完的墓碑，与清单文件内容一致
+    private final Set<Path> pending = new LinkedHashSet<>();
+
+    /**
+     * @param pendingFile 待删除墓碑的清单文件
+     * @param isProtected 判断目录是否受保护
+     * @param listener    后台删除的回调，在后台线程中调用
+     */
+    public TrashSwap(Path pendingFile, Predicate<Path> isProtected, ParallelDeleter.Listener listener) {
+        this.pendingFile = pendingFile;
+        this.isProtected = isProtected;
+        this.listener = listener;
+        this.purger = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "trash-purge");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * 把目录改名为墓碑、重建空目录并安排后台删除。
+     *
+     * @return 墓碑目录
+     * @throws IOException 改名失败（例如目录中有文件被占用或跨卷），此时目录保持原样
+     */
+    public Path swap(Path dir) throws IOException {
+        Path abs = dir.toAbsolutePath();
+        Path tombstone = abs.resolveSibling(abs.getFileName() + TOMBSTONE_MARKER + System.currentTimeMillis());
+        for (int n = 1; Files.exists(tombstone); n++) {
+            tombstone = abs.resolveSibling(abs.getFileName() + TOMBSTONE_MARKER + System.currentTimeMillis() + "-" + n);
+        }
+        // 先记录再改名：改名前退出时，下次启动发现墓碑不存在，直接从清单移除
+        addPending(tombstone);
+        try {
+            Files.move(abs, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            removePending(tombstone);
+            throw e;
+        }
+        try {
+            Files.createDirectory(abs);
+        } catch (IOException e) {
+            listener.onFailed(abs, e);
+        }
+        purgeAsync(tombstone);
+        return tombstone;
+    }
+
+    /**
+     * 读取清单，继续删除上次未删除完的墓碑。
+     *
+     * @return 安排删除的墓碑数
+     */
+    public int resumePending() {
+        List<Path> recorded = new ArrayList<>();
+        if (Files.isRegularFile(pendingFile)) {
+            try {
+                for (String line : Files.readAllLines(pendingFile, StandardCharsets.UTF_8)) {
+                    if (!line.trim().isEmpty()) {
+                        recorded.add(Paths.get(line.trim()));
+                    }
+                }
+            } catch (IOException e) {
+                listener.onFailed(pendingFile, e);
+                return 0;
+            }
+        }
+        int scheduled = 0;
+        synchronized (this) {
+            pending.clear();
+            for (Path p : recorded) {
+                Path name = p.getFileName();
+                if (name != null && name.toString().contains(TOMBSTONE_MARKER) && Files.isDirectory(p)) {
+                    pending.add(p);
+                }
+            }
+            savePending();
+            for (Path p : pending) {
+                purgeAsync(p);
+                scheduled++;
+            }
+        }
+        return scheduled;
+    }
+
+    /**
+     * 尚未删除完的墓碑数。
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private void purgeAsync(Path tombstone) {
+        purger.execute(() -> {
+            new ParallelDeleter(1, Thread.MIN_PRIORITY, isProtected, listener).delete(tombstone);
+            if (!Files.exists(tombstone)) {
+                removePending(tombstone);
+            }
+        });
+    }
+
+    private synchronized void addPending(Path tombstone) throws IOException {
+        Files.write(pendingFile, (tombstone + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        pending.add(tombstone);
+    }
+
+    private synchronized void removePending(Path tombstone) {
+        if (pending.remove(tombstone)) {
+            savePending();
+        }
+    }
+
+    private void savePending() {
+        try {
+            if (pending.isEmpty()) {
+                Files.deleteIfExists(pendingFile);
+                return;
+            }
+            List<String> lines = new ArrayList<>();
+            for (Path p : pending) {
+                lines.add(p.toString());
+            }
+            Files.write(pendingFile, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            listener.onFailed(pendingFile, e);
+        }
+    }
+}
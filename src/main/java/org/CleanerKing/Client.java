@@ -5,25 +5,39 @@ import org.CleanerKing.ModuleManager.Modules.*;
 
 public class Client {
     public static void main(String[] args) {
+        // 命令行给出的目录作为文件搜索的默认目录
+        if (args.length > 0) {
+            Utils.setStartupDirectory(args[0]);
+        }
+
         // 初始化工具类
         Utils.clearScreen();
         Utils.display3DASCII();
 
-        // 显示加载动画
+        // 显示加载动画，不阻塞后续的启动工作
         Utils.showLoadingAnimation();
 
+        // 创建全程共用的终端会话
+        Utils.getTerminalSession();
+
+        // 继续删除上次快速清理遗留的目录
+        Utils.resumePendingPurges();
+
         ModuleManager moduleManager = new ModuleManager();
 
-        // 注册模块
-        moduleManager.registerModule("1", new OneClickCleanModule());
-        moduleManager.registerModule("2", new AdvancedCleanModule());
-        moduleManager.registerModule("3", new WindowsToolsModule());
-        moduleManager.registerModule("4", new FileSearchModule());
-        moduleManager.registerModule("5", new DNSModule());
-        moduleManager.registerModule("6", new NetworkRepairModule()); // 新增网络修复模块
-        moduleManager.registerModule("7", new SettingsModule());
-        moduleManager.registerModule("8", new ExitModule());
+        // 注册模块：只登记名称，模块在首次选择时才创建。
+        // 使用 lambda 而不是构造器引用，注册时不解析模块类
+        moduleManager.registerModule("1", "一键清理", () -> new OneClickCleanModule());
+        moduleManager.registerModule("2", "高级清理", () -> new AdvancedCleanModule());
+        moduleManager.registerModule("3", "Windows内置工具菜单", () -> new WindowsToolsModule());
+        moduleManager.registerModule("4", "文件搜索与删除(终极版)", () -> new FileSearchModule());
+        moduleManager.registerModule("5", "磁盘占用分析", () -> new DiskUsageModule());
+        moduleManager.registerModule("6", "DNS 设置", () -> new DNSModule());
+        moduleManager.registerModule("7", "网络修复", () -> new NetworkRepairModule()); // 新增网络修复模块
+        moduleManager.registerModule("8", "设置", () -> new SettingsModule());
+        moduleManager.registerModule("9", "退出", () -> new ExitModule());
 
+        Utils.finishLoadingAnimation();
         moduleManager.showMainMenu(); // 调用模块管理器显示主菜单
     }
 }
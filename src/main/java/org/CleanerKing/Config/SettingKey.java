@@ -0,0 +1,116 @@
+package org.CleanerKing.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * 带类型的配置项：名称即配置文件中的键，包含默认值及与字符串之间的转换。
+ * 值不合法（无法解析或超出范围）时使用默认值。
+ *
+ * @param <T> 值类型
+ */
+public final class SettingKey<T> {
+
+    // 目录列表在配置文件中的分隔符，Windows 路径中不会出现
+    private static final String PATH_LIST_SEPARATOR = "|";
+
+    private final String name;
+    private final T defaultValue;
+    private final Function<String, T> parser;
+    private final Function<T, String> formatter;
+
+    private SettingKey(String name, T defaultValue, Function<String, T> parser, Function<T, String> formatter) {
+        this.name = name;
+        this.defaultValue = defaultValue;
+        this.parser = parser;
+        this.formatter = formatter;
+    }
+
+    public static SettingKey<String> ofString(String name, String defaultValue) {
+        return new SettingKey<>(name, defaultValue, s -> s, s -> s);
+    }
+
+    public static SettingKey<Boolean> ofBoolean(String name, boolean defaultValue) {
+        return new SettingKey<>(name, defaultValue, s -> {
+            if (s.equalsIgnoreCase("true")) return true;
+            if (s.equalsIgnoreCase("false")) return false;
+            throw new IllegalArgumentException(s);
+        }, String::valueOf);
+    }
+
+    /**
+     * 整数配置项，取值范围 [min, max]。
+     */
+    public static SettingKey<Integer> ofInt(String name, int defaultValue, int min, int max) {
+        return new SettingKey<>(name, defaultValue, s -> {
+            int v = Integer.parseInt(s.trim());
+            if (v < min || v > max) throw new IllegalArgumentException(s);
+            return v;
+        }, String::valueOf);
+    }
+
+    /**
+     * 长整数配置项，取值范围 [min, max]。
+     */
+    public static SettingKey<Long> ofLong(String name, long defaultValue, long min, long max) {
+        return new SettingKey<>(name, defaultValue, s -> {
+            long v = Long.parseLong(s.trim());
+            if (v < min || v > max) throw new IllegalArgumentException(s);
+            return v;
+        }, String::valueOf);
+    }
+
+    /**
+     * 路径列表配置项，默认为空列表。值不可修改，修改时设置新的列表。
+     */
+    public static SettingKey<List<String>> ofPathList(String name) {
+        return new SettingKey<>(name, Collections.<String>emptyList(), s -> {
+            List<String> paths = new ArrayList<>();
+            for (String p : s.split(Pattern.quote(PATH_LIST_SEPARATOR))) {
+                if (!p.trim().isEmpty()) {
+                    paths.add(p.trim());
+                }
+            }
+            return Collections.unmodifiableList(paths);
+        }, paths -> String.join(PATH_LIST_SEPARATOR, paths));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public T getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * 解析配置文件中的值。
+     *
+     * @throws IllegalArgumentException 值不合法
+     */
+    T parse(String text) {
+        return parser.apply(text);
+    }
+
+    String format(T value) {
+        return formatter.apply(value);
+    }
+
+    /**
+     * 检查要设置的值是否合法（能够写入并重新读出）。
+     */
+    void validate(T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("配置项 " + name + " 不能为空");
+        }
+        parse(format(value));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,229 @@
+package org.CleanerKing.Config;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * 线程安全的配置存储：值按 SettingKey 读写，修改后延迟写回文件，
+ * 短时间内的多次修改合并为一次写入。
+ *
+ * 写入先写到同目录的临时文件再改名替换，中途退出不会留下写了一半的配置文件。
+ * 文件中不认识的键原样保留。修改后在修改的线程中通知该项的监听器。
+ *
+ * 同一配置项的修改与通知在该项的锁内依次进行，监听器按修改的顺序收到通知，不会先收到新值再收到旧值。
+ * 监听器中可以再次修改同一项，嵌套的通知结束后，其余监听器收到的是修改后的当前值。
+ */
+public class SettingsStore {
+
+    private static final String HEADER = "CleanerKing Configuration";
+
+    private final Path file;
+    private final long writeDelayMillis;
+    // 文件内容（字符串形式），修改与写入时加锁
+    private final Properties properties = new Properties();
+    // 已解析的值
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<Object>>> listeners = new ConcurrentHashMap<>();
+    // 每个配置项的修改锁，修改与通知监听器期间持有
+    private final Map<String, Object> keyLocks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer;
+    private boolean writeScheduled;
+    private boolean dirty;
+
+    /**
+     * @param file             配置文件
+     * @param writeDelayMillis 修改后延迟写入的时间，期间的修改一并写入
+     */
+    public SettingsStore(Path file, long writeDelayMillis) {
+        this.file = file;
+        this.writeDelayMillis = writeDelayMillis;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "settings-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        load();
+    }
+
+    /**
+     * 读取配置文件；文件不存在时创建。
+     */
+    private void load() {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            synchronized (properties) {
+                markDirty();
+            }
+        } catch (IOException e) {
+            System.out.println("无法加载配置文件: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取配置项，文件中没有或值不合法时返回默认值。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(SettingKey<T> key) {
+        Object value = values.get(key.getName());
+        if (value == null) {
+            // 解析在映射之外进行；与并发的 set 竞争时以 set 的值为准
+            Object parsed = parseStored(key);
+            value = values.putIfAbsent(key.getName(), parsed);
+            if (value == null) {
+                value = parsed;
+            }
+        }
+        return (T) value;
+    }
+
+    private <T> T parseStored(SettingKey<T> key) {
+        String text;
+        synchronized (properties) {
+            text = properties.getProperty(key.getName());
+        }
+        if (text == null) {
+            return key.getDefaultValue();
+        }
+        try {
+            return key.parse(text);
+        } catch (IllegalArgumentException e) {
+            System.out.println("配置项 " + key.getName() + " 无效，使用默认值。");
+            return key.getDefaultValue();
+        }
+    }
+
+    /**
+     * 设置配置项并安排写回；值与原值不同时通知监听器。
+     *
+     * @throws IllegalArgumentException 值不合法
+     */
+    public <T> void set(SettingKey<T> key, T value) {
+        update(key, old -> value);
+    }
+
+    /**
+     * 以原值计算新值并设置，读取与设置之间不会插入其他线程对该项的修改。
+     *
+     * @throws IllegalArgumentException 新值不合法
+     */
+    public <T> T update(SettingKey<T> key, UnaryOperator<T> function) {
+        synchronized (keyLocks.computeIfAbsent(key.getName(), name -> new Object())) {
+            T old;
+            T value;
+            synchronized (properties) {
+                old = get(key);
+                T requested = function.apply(old);
+                key.validate(requested);
+                // 经过一次格式化与解析，得到与文件内容一致且不可修改的值
+                String text = key.format(requested);
+                value = key.parse(text);
+                values.put(key.getName(), value);
+                properties.setProperty(key.getName(), text);
+                markDirty();
+            }
+            if (!value.equals(old)) {
+                notifyListeners(key);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 注册配置项的监听器，值改变后以当前值调用。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void addListener(SettingKey<T> key, Consumer<? super T> listener) {
+        listeners.computeIfAbsent(key.getName(), name -> new CopyOnWriteArrayList<>())
+                .add(value -> listener.accept((T) value));
+    }
+
+    // 调用时持有该项的修改锁；每个监听器取当前值，前一个监听器可能已再次修改该项
+    private void notifyListeners(SettingKey<?> key) {
+        List<Consumer<Object>> list = listeners.get(key.getName());
+        if (list == null) return;
+        for (Consumer<Object> listener : list) {
+            try {
+                listener.accept(get(key));
+            } catch (RuntimeException e) {
+                System.out.println("配置项 " + key.getName() + " 的监听器出错: " + e.getMessage());
+            }
+        }
+    }
+
+    // 调用时持有 properties 锁
+    private void markDirty() {
+        dirty = true;
+        if (writer.isShutdown()) {
+            // 已关闭（退出过程中）的修改直接写入
+            flushLocked();
+        } else if (!writeScheduled) {
+            writeScheduled = true;
+            writer.schedule(this::flush, writeDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 立即写入尚未写回的修改。退出前调用，确保修改不丢失。
+     */
+    public void flush() {
+        synchronized (properties) {
+            flushLocked();
+        }
+    }
+
+    private void flushLocked() {
+        writeScheduled = false;
+        if (!dirty) return;
+        dirty = false;
+        try {
+            write();
+        } catch (IOException e) {
+            System.out.println("无法保存配置文件: " + e.getMessage());
+        }
+    }
+
+    private void write() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer w = new OutputStreamWriter(Files.newOutputStream(temp), StandardCharsets.UTF_8)) {
+                properties.store(w, HEADER);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 写入剩余修改并停止写回线程。
+     */
+    public void close() {
+        writer.shutdownNow();
+        flush();
+    }
+}
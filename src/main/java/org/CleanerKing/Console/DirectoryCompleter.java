@@ -0,0 +1,56 @@
+package org.CleanerKing.Console;
+
+import org.jline.reader.Candidate;
+import org.jline.reader.Completer;
+import org.jline.reader.LineReader;
+import org.jline.reader.ParsedLine;
+
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * 目录路径的 Tab 补全：整行视为一个路径，只补全目录，列表来自 DirectoryListingCache。
+ * 行为空时列出各盘符（根目录）。行首的 +（收藏标记）保留，不参与补全。
+ */
+public class DirectoryCompleter implements Completer {
+
+    private final DirectoryListingCache listings;
+
+    public DirectoryCompleter(DirectoryListingCache listings) {
+        this.listings = listings;
+    }
+
+    @Override
+    public void complete(LineReader reader, ParsedLine line, List<Candidate> candidates) {
+        String text = line.line().substring(0, line.cursor());
+        String mark = text.startsWith("+") ? "+" : "";
+        text = text.substring(mark.length());
+        int sep = Math.max(text.lastIndexOf('/'), text.lastIndexOf('\\'));
+        if (sep < 0) {
+            for (File root : File.listRoots()) {
+                String r = root.getPath();
+                if (r.regionMatches(true, 0, text, 0, text.length())) {
+                    candidates.add(new Candidate(mark + r, r, null, null, null, null, false));
+                }
+            }
+            return;
+        }
+        String parent = text.substring(0, sep + 1);
+        String prefix = text.substring(sep + 1);
+        List<String> names;
+        try {
+            names = listings.subdirectories(Paths.get(parent));
+        } catch (InvalidPathException e) {
+            return;
+        }
+        char separator = text.charAt(sep);
+        for (String name : names) {
+            // Windows 文件名不区分大小写
+            if (name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                candidates.add(new Candidate(mark + parent + name + separator, name + separator, null, null, null, null, false));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.CleanerKing.Console;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 目录列表的 LRU 缓存：保存最近浏览过的目录的子目录名，补全与浏览时不必反复列出。
+ *
+ * 目录的修改时间在增删子项时改变，命中时只比较一次修改时间，不一致则重新列出。
+ */
+public class DirectoryListingCache {
+
+    private static final class Listing {
+        final long modified;
+        final List<String> subdirectories;
+
+        Listing(long modified, List<String> subdirectories) {
+            this.modified = modified;
+            this.subdirectories = subdirectories;
+        }
+    }
+
+    private final Map<Path, Listing> cache;
+
+    /**
+     * @param capacity 缓存的目录数上限，超出时淘汰最久未使用的目录
+     */
+    public DirectoryListingCache(int capacity) {
+        this.cache = new LinkedHashMap<Path, Listing>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Listing> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * 列出目录下的子目录名，按名称排序（不区分大小写）。
+     *
+     * @return 子目录名；目录不存在或无法读取时返回空列表
+     */
+    public List<String> subdirectories(Path dir) {
+        Path key = dir.toAbsolutePath().normalize();
+        long modified;
+        try {
+            modified = Files.getLastModifiedTime(key).toMillis();
+        } catch (IOException e) {
+            synchronized (cache) {
+                cache.remove(key);
+            }
+            return Collections.emptyList();
+        }
+        synchronized (cache) {
+            Listing listing = cache.get(key);
+            if (listing != null && listing.modified == modified) {
+                return listing.subdirectories;
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(key, Files::isDirectory)) {
+            for (Path p : stream) {
+                names.add(p.getFileName().toString());
+            }
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+        names.sort(String.CASE_INSENSITIVE_ORDER);
+        List<String> result = Collections.unmodifiableList(names);
+        synchronized (cache) {
+            cache.put(key, new Listing(modified, result));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package org.CleanerKing.Console;
+
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 终端中的目录选择，取代 JFileChooser：不启动 AWT/Swing，无图形界面（SSH、服务器）时同样可用。
+ *
+ * 可以输入收藏或最近目录的编号，也可以直接输入路径，按 Tab 补全子目录；
+ * 路径前加 + 表示选择并收藏。补全所需的目录列表来自共享的 LRU 缓存。
+ *
+ * 输入形如编号（如 3、F2）时优先作为编号；没有对应的编号而当前目录下有同名目录时选择该目录。
+ * 要选择与有效编号同名的目录，输入 .\3 这样的路径。
+ */
+public class DirectoryPicker {
+
+    private final TerminalSession session;
+    private final DirectoryCompleter completer;
+
+    public DirectoryPicker(TerminalSession session, DirectoryListingCache listings) {
+        this.session = session;
+        this.completer = new DirectoryCompleter(listings);
+    }
+
+    /**
+     * 选择一个目录。
+     *
+     * @param title      标题
+     * @param defaultDir 直接回车时选择的目录（如启动参数给出的目录），可为 null
+     * @param recent     最近使用的目录，最近的在前
+     * @param favorites  收藏的目录
+     * @param onFavorite 用户收藏目录时回调
+     * @return 选择的目录（绝对路径），按 ESC 时返回 null
+     */
+    public String pick(String title, String defaultDir, List<String> recent, List<String> favorites, Consumer<String> onFavorite) {
+        boolean hasDefault = defaultDir != null && Files.isDirectory(Paths.get(defaultDir));
+        System.out.println("========== " + title + " ==========");
+        if (hasDefault) {
+            System.out.println("[回车] " + defaultDir);
+        }
+        if (!favorites.isEmpty()) {
+            System.out.println("收藏：");
+            for (int i = 0; i < favorites.size(); i++) {
+                System.out.printf("  [F%d] %s%n", i + 1, favorites.get(i));
+            }
+        }
+        if (!recent.isEmpty()) {
+            System.out.println("最近：");
+            for (int i = 0; i < recent.size(); i++) {
+                System.out.printf("  [%d] %s%n", i + 1, recent.get(i));
+            }
+        }
+        System.out.println("----------------------------------");
+
+        while (true) {
+            System.out.print("输入编号或目录路径（Tab 补全，路径前加 + 收藏，ESC 返回）: ");
+            String input = session.readLine(completer).trim();
+            if (input.equals(TerminalSession.ESCAPE)) {
+                return null;
+            }
+            if (input.isEmpty()) {
+                if (hasDefault) {
+                    return Paths.get(defaultDir).toAbsolutePath().normalize().toString();
+                }
+                continue;
+            }
+
+            boolean favorite = input.startsWith("+");
+            if (favorite) {
+                input = input.substring(1).trim();
+            }
+            String candidate = resolve(input, recent, favorites);
+            if (candidate == null) {
+                System.out.println("无效编号: " + input);
+                continue;
+            }
+            Path dir;
+            try {
+                dir = Paths.get(candidate).toAbsolutePath().normalize();
+            } catch (InvalidPathException e) {
+                System.out.println("无效路径: " + candidate);
+                continue;
+            }
+            if (!Files.isDirectory(dir)) {
+                System.out.println("目录不存在: " + dir);
+                continue;
+            }
+            if (favorite) {
+                onFavorite.accept(dir.toString());
+            }
+            return dir.toString();
+        }
+    }
+
+    /**
+     * 把编号换成对应的目录，路径原样返回（去掉粘贴时带的引号）；
+     * 编号无效且不是已存在的目录时返回 null。
+     */
+    private static String resolve(String input, List<String> recent, List<String> favorites) {
+        if (input.matches("\\d+")) {
+            return byIndex(input, input, recent);
+        }
+        if (input.matches("[Ff]\\d+")) {
+            return byIndex(input, input.substring(1), favorites);
+        }
+        if (input.length() >= 2 && input.startsWith("\"") && input.endsWith("\"")) {
+            return input.substring(1, input.length() - 1);
+        }
+        return input;
+    }
+
+    /**
+     * 编号对应的目录；编号超出范围（包括超出 int 的数字）时，若 input 是已存在的目录则按路径返回。
+     */
+    private static String byIndex(String input, String number, List<String> dirs) {
+        int i;
+        try {
+            i = Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            i = 0;
+        }
+        if (i >= 1 && i <= dirs.size()) {
+            return dirs.get(i - 1);
+        }
+        return Files.isDirectory(Paths.get(input)) ? input : null;
+    }
+}
@@ -0,0 +1,99 @@
+package org.CleanerKing.Console;
+
+import org.CleanerKing.FileScan.ScanController;
+import org.jline.terminal.Attributes;
+import org.jline.terminal.Terminal;
+import org.jline.utils.NonBlockingReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 扫描期间在后台监听按键：ESC 或 Ctrl+C 取消扫描，P 暂停/继续。
+ *
+ * 使用程序共用的终端会话，不另建终端。监听期间终端切换到原始模式，按键无需回车即可读到；
+ * Ctrl+C 通过 INT 信号处理。关闭后恢复终端设置与原有的信号处理，之后可以正常读取整行输入。
+ */
+public class ScanKeyWatcher implements Closeable {
+
+    private static final int POLL_MILLIS = 50;
+    // ESC 之后在此时间内还有字符，视为方向键等转义序列而不是单独的 ESC
+    private static final int ESCAPE_SEQUENCE_MILLIS = 20;
+
+    private final ScanController controller;
+    private final Terminal terminal;
+    private final Attributes savedAttributes;
+    private final Terminal.SignalHandler previousIntHandler;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private ScanKeyWatcher(Terminal terminal, ScanController controller) {
+        this.controller = controller;
+        this.terminal = terminal;
+        this.savedAttributes = terminal.enterRawMode();
+        this.previousIntHandler = terminal.handle(Terminal.Signal.INT, signal -> controller.cancel());
+        this.thread = new Thread(this::readLoop, "scan-keys");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 开始监听；终端不可用时返回 null，扫描仍可正常进行，只是不能用按键控制。
+     */
+    public static ScanKeyWatcher start(Terminal terminal, ScanController controller) {
+        try {
+            return new ScanKeyWatcher(terminal, controller);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void readLoop() {
+        NonBlockingReader reader = terminal.reader();
+        try {
+            while (running) {
+                int c = reader.read(POLL_MILLIS);
+                if (c == NonBlockingReader.READ_EXPIRED) continue;
+                if (c < 0) return;
+                switch (c) {
+                    case 27:
+                        if (reader.peek(ESCAPE_SEQUENCE_MILLIS) == NonBlockingReader.READ_EXPIRED) {
+                            controller.cancel();
+                        } else {
+                            // 丢弃转义序列的其余部分
+                            while (reader.peek(ESCAPE_SEQUENCE_MILLIS) >= 0) {
+                                reader.read();
+                            }
+                        }
+                        break;
+                    case 3:
+                        controller.cancel();
+                        break;
+                    case 'p':
+                    case 'P':
+                        controller.togglePause();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            // 终端不可读时停止监听
+        }
+    }
+
+    /**
+     * 停止监听并恢复终端。
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(POLL_MILLIS * 4L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        terminal.setAttributes(savedAttributes);
+        terminal.handle(Terminal.Signal.INT, previousIntHandler);
+    }
+}
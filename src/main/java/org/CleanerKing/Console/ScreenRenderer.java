@@ -0,0 +1,119 @@
+package org.CleanerKing.Console;
+
+import org.jline.utils.AttributedString;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于 ANSI 光标控制的整屏渲染：一帧是若干行文本，与上一帧逐行比较，
+ * 只重写变化的行，整帧合并为一次输出，不再为清屏启动 cls 进程，也不闪烁。
+ *
+ * 渲染器只知道自己输出的帧。其他代码直接输出后应调用 invalidate()，
+ * 下一帧将清屏后完整重绘。帧的最后一行是提示行，渲染后光标停在其末尾。
+ */
+public class ScreenRenderer {
+
+    private static final String ESC = "\033[";
+    private static final String CLEAR_SCREEN = ESC + "H" + ESC + "2J";
+    private static final String ERASE_LINE_END = ESC + "K";
+    private static final String ERASE_BELOW = ESC + "J";
+
+    private final PrintStream out;
+    private volatile int width;
+    private volatile int height;
+    // 屏幕上当前的帧；null 表示屏幕内容未知
+    private List<String> previous;
+
+    /**
+     * @param out    输出流
+     * @param width  终端列数，超出的行被截断，避免自动换行打乱行位置
+     * @param height 终端行数，帧超过该高度时每次完整重绘
+     */
+    public ScreenRenderer(PrintStream out, int width, int height) {
+        this.out = out;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * 终端大小变化时更新，并在下一帧完整重绘。
+     */
+    public synchronized void setSize(int width, int height) {
+        if (width > 0 && height > 0 && (width != this.width || height != this.height)) {
+            this.width = width;
+            this.height = height;
+            previous = null;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 清屏。之后其他代码可以直接输出，屏幕内容视为未知。
+     */
+    public synchronized void clear() {
+        out.print(CLEAR_SCREEN);
+        out.flush();
+        previous = null;
+    }
+
+    /**
+     * 屏幕已被其他输出改变，下一帧完整重绘。
+     */
+    public synchronized void invalidate() {
+        previous = null;
+    }
+
+    /**
+     * 渲染一帧。
+     *
+     * @param lines 帧的各行，可含 ANSI 颜色；最后一行为提示行，不换行
+     */
+    public synchronized void render(List<String> lines) {
+        List<String> frame = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            frame.add(fit(line));
+        }
+        StringBuilder sb = new StringBuilder();
+        if (previous == null || frame.isEmpty() || frame.size() >= height) {
+            // 屏幕未知或帧会滚动屏幕：清屏后整帧输出
+            sb.append(CLEAR_SCREEN);
+            for (int i = 0; i < frame.size(); i++) {
+                if (i > 0) sb.append(System.lineSeparator());
+                sb.append(frame.get(i));
+            }
+        } else {
+            int last = frame.size() - 1;
+            for (int i = 0; i < last; i++) {
+                // 上一帧的提示行可能带有输入回显，不能视为未变化
+                if (i < previous.size() - 1 && previous.get(i).equals(frame.get(i))) continue;
+                moveTo(sb, i).append(frame.get(i)).append(ERASE_LINE_END);
+            }
+            // 提示行可能留有上次输入的回显，总是重写，并清除其下方的内容
+            moveTo(sb, last).append(ERASE_BELOW).append(frame.get(last));
+        }
+        out.print(sb);
+        out.flush();
+        previous = frame.size() < height ? frame : null;
+    }
+
+    private static StringBuilder moveTo(StringBuilder sb, int row) {
+        return sb.append(ESC).append(row + 1).append(";1H");
+    }
+
+    /**
+     * 按显示宽度截断（中文占两列），留一列避免光标停在行尾时换行。
+     */
+    private String fit(String line) {
+        AttributedString s = AttributedString.fromAnsi(line);
+        int max = Math.max(1, width - 1);
+        if (s.columnLength() <= max) {
+            return line;
+        }
+        return s.columnSubSequence(0, max).toAnsi() + ESC + "0m";
+    }
+}
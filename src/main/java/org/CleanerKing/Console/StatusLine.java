@@ -0,0 +1,128 @@
+package org.CleanerKing.Console;
+
+import org.jline.utils.AttributedString;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * 固定帧率刷新的状态行：扫描、删除等操作的进度只更新状态文本，
+ * 由刷新线程按帧率重绘在屏幕底部的一行上；期间打印的消息先排队，
+ * 每帧合并为一次输出，显示在状态行上方。
+ *
+ * 上千次逐行打印因此变为每秒若干次输出。关闭时输出剩余消息并保留最后的状态。
+ */
+public class StatusLine implements Closeable {
+
+    private static final String CLEAR_LINE = "\r\033[K";
+
+    private final PrintStream out;
+    private final int width;
+    private final long frameMillis;
+    private final Runnable onClose;
+    private final Queue<String> messages = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile Supplier<String> status = () -> "";
+    private volatile boolean running = true;
+    // 只由刷新线程与 close() 访问（close() 在刷新线程结束后访问）
+    private String drawn = "";
+
+    /**
+     * @param out         输出流
+     * @param width       终端列数，状态文本超出时截断
+     * @param frameMillis 刷新间隔
+     * @param onClose     关闭时首先执行，可为 null
+     */
+    public StatusLine(PrintStream out, int width, long frameMillis, Runnable onClose) {
+        this.out = out;
+        this.width = width;
+        this.frameMillis = frameMillis;
+        this.onClose = onClose;
+        this.thread = new Thread(this::refreshLoop, "status-line");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 设置状态文本，下一帧显示。
+     */
+    public void set(String text) {
+        status = () -> text;
+    }
+
+    /**
+     * 设置状态文本的来源，每帧调用一次，适合显示计数与耗时。
+     */
+    public void set(Supplier<String> source) {
+        status = source;
+    }
+
+    /**
+     * 在状态行上方打印一行消息，下一帧输出。可由任意线程调用。
+     */
+    public void println(String message) {
+        messages.add(message);
+    }
+
+    private void refreshLoop() {
+        try {
+            while (running) {
+                draw();
+                Thread.sleep(frameMillis);
+            }
+        } catch (InterruptedException e) {
+            // close() 中断刷新线程
+        }
+    }
+
+    private void draw() {
+        String text = fit(status.get());
+        if (messages.isEmpty() && text.equals(drawn)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(CLEAR_LINE);
+        String message;
+        while ((message = messages.poll()) != null) {
+            sb.append(message).append(System.lineSeparator());
+        }
+        sb.append(text);
+        synchronized (out) {
+            out.print(sb);
+            out.flush();
+        }
+        drawn = text;
+    }
+
+    private String fit(String text) {
+        if (text == null) return "";
+        AttributedString s = AttributedString.fromAnsi(text);
+        int max = Math.max(1, width - 1);
+        return s.columnLength() <= max ? text : s.columnSubSequence(0, max).toAnsi();
+    }
+
+    /**
+     * 停止刷新，输出剩余消息，最后的状态保留在屏幕上并换行。
+     */
+    @Override
+    public void close() {
+        // 先停止接收新消息，再输出已排队的消息
+        if (onClose != null) {
+            onClose.run();
+        }
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        draw();
+        synchronized (out) {
+            out.print(drawn.isEmpty() ? CLEAR_LINE : System.lineSeparator());
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.CleanerKing.Console;
+
+import org.jline.keymap.KeyMap;
+import org.jline.reader.Binding;
+import org.jline.reader.Completer;
+import org.jline.reader.CompletingParsedLine;
+import org.jline.reader.LineReader;
+import org.jline.reader.LineReaderBuilder;
+import org.jline.reader.Reference;
+import org.jline.reader.UserInterruptException;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 全程共用的终端会话：启动时创建一个 JLine 终端与行读取器，所有模块的输入都经由它读取，
+ * 不再每次提示都新建终端，也不再与 Scanner 争抢标准输入。
+ *
+ * 单独按下 ESC 无需回车即返回 ESCAPE；方向键等以 ESC 开头的转义序列在短暂等待后仍按原样处理。
+ * 每次提示从按下回车到返回输入的耗时被记录，用于确认读取本身不引入可感知的延迟。
+ */
+public class TerminalSession implements Closeable {
+
+    /**
+     * 按下 ESC 或 Ctrl+C 时 readLine() 的返回值。
+     */
+    public static final String ESCAPE = "ESC";
+
+    // 单独的 ESC 与 ESC 开头的转义序列之间的判定时间
+    private static final long ESCAPE_TIMEOUT_MILLIS = 50;
+    private static final String ESCAPE_WIDGET = "cleanerking-escape";
+    private static final String ACCEPT_WIDGET = "cleanerking-accept";
+
+    private final Terminal terminal;
+    private final LineReader reader;
+    private volatile boolean escaped;
+    private volatile Completer completer;
+    private long acceptedAt;
+
+    private long promptCount;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    private TerminalSession(Terminal terminal) {
+        this.terminal = terminal;
+        this.reader = LineReaderBuilder.builder()
+                .terminal(terminal)
+                // 整行作为一个词：Windows 路径中的反斜杠与空格不被当作转义或分词，也不会因此要求续行
+                .parser((line, cursor, context) -> new WholeLine(line, cursor))
+                .completer((r, line, candidates) -> {
+                    Completer c = completer;
+                    if (c != null) {
+                        c.complete(r, line, candidates);
+                    }
+                })
+                .option(LineReader.Option.DISABLE_EVENT_EXPANSION, true)
+                .option(LineReader.Option.CASE_INSENSITIVE, true)
+                .variable(LineReader.AMBIGUOUS_BINDING, ESCAPE_TIMEOUT_MILLIS)
+                .build();
+
+        reader.getWidgets().put(ESCAPE_WIDGET, () -> {
+            escaped = true;
+            acceptedAt = System.nanoTime();
+            reader.getBuffer().clear();
+            reader.callWidget(LineReader.ACCEPT_LINE);
+            return true;
+        });
+        reader.getWidgets().put(ACCEPT_WIDGET, () -> {
+            acceptedAt = System.nanoTime();
+            reader.callWidget(LineReader.ACCEPT_LINE);
+            return true;
+        });
+        KeyMap<Binding> main = reader.getKeyMaps().get(LineReader.MAIN);
+        main.bind(new Reference(ESCAPE_WIDGET), KeyMap.esc());
+        main.bind(new Reference(ACCEPT_WIDGET), KeyMap.ctrl('M'), KeyMap.ctrl('J'));
+    }
+
+    /**
+     * 创建连接到系统控制台的会话；控制台不可用（如输入被重定向）时退回为哑终端。
+     */
+    public static TerminalSession open() throws IOException {
+        return new TerminalSession(TerminalBuilder.builder()
+                .system(true)
+                .nativeSignals(true)
+                .dumb(true)
+                .encoding(StandardCharsets.UTF_8)
+                .build());
+    }
+
+    /**
+     * 使用给定终端创建会话，用于测试或基准。
+     */
+    public static TerminalSession of(Terminal terminal) {
+        return new TerminalSession(terminal);
+    }
+
+    public Terminal getTerminal() {
+        return terminal;
+    }
+
+    /**
+     * 读取一行输入。提示文字由调用方先行输出。
+     *
+     * @return 输入内容；按下 ESC 或 Ctrl+C 时返回 ESCAPE
+     * @throws org.jline.reader.EndOfFileException 输入已结束
+     */
+    public synchronized String readLine() {
+        return readLine(null);
+    }
+
+    /**
+     * 读取一行输入，按 Tab 时使用给定的补全。
+     *
+     * @param completer 本次输入的补全，可为 null
+     * @return 输入内容；按下 ESC 或 Ctrl+C 时返回 ESCAPE
+     */
+    public synchronized String readLine(Completer completer) {
+        this.completer = completer;
+        try {
+            return read();
+        } finally {
+            this.completer = null;
+        }
+    }
+
+    private String read() {
+        escaped = false;
+        acceptedAt = 0;
+        String line;
+        try {
+            line = reader.readLine("");
+        } catch (UserInterruptException e) {
+            return ESCAPE;
+        }
+        if (acceptedAt != 0) {
+            long latency = System.nanoTime() - acceptedAt;
+            promptCount++;
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+        }
+        return escaped ? ESCAPE : line;
+    }
+
+    /**
+     * 终端大小变化时回调（列数，行数），注册时立即以当前大小回调一次。
+     */
+    public void onResize(BiConsumer<Integer, Integer> listener) {
+        listener.accept(terminal.getWidth(), terminal.getHeight());
+        terminal.handle(Terminal.Signal.WINCH, signal -> listener.accept(terminal.getWidth(), terminal.getHeight()));
+    }
+
+    /**
+     * 已读取的提示数。
+     */
+    public synchronized long getPromptCount() {
+        return promptCount;
+    }
+
+    /**
+     * 从按下回车到返回输入的平均耗时（微秒）。
+     */
+    public synchronized double getAverageLatencyMicros() {
+        return promptCount == 0 ? 0 : totalLatencyNanos / 1000.0 / promptCount;
+    }
+
+    /**
+     * 从按下回车到返回输入的最大耗时（微秒）。
+     */
+    public synchronized double getMaxLatencyMicros() {
+        return maxLatencyNanos / 1000.0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        terminal.close();
+    }
+
+    /**
+     * 整行即一个词，补全时原样替换，不加引号或转义。
+     */
+    private static final class WholeLine implements CompletingParsedLine {
+        private final String line;
+        private final int cursor;
+
+        WholeLine(String line, int cursor) {
+            this.line = line;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public String word() {
+            return line;
+        }
+
+        @Override
+        public int wordCursor() {
+            return cursor;
+        }
+
+        @Override
+        public int wordIndex() {
+            return 0;
+        }
+
+        @Override
+        public List<String> words() {
+            return Collections.singletonList(line);
+        }
+
+        @Override
+        public String line() {
+            return line;
+        }
+
+        @Override
+        public int cursor() {
+            return cursor;
+        }
+
+        @Override
+        public CharSequence escape(CharSequence candidate, boolean complete) {
+            return candidate;
+        }
+
+        @Override
+        public int rawWordCursor() {
+            return cursor;
+        }
+
+        @Override
+        public int rawWordLength() {
+            return line.length();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.CleanerKing.Exec;
+
+import java.util.List;
+
+/**
+ * 外部命令的执行结果。
+ */
+public class CommandResult {
+
+    private final List<String> command;
+    private final int exitCode;
+    private final String output;
+    private final String error;
+    private final boolean timedOut;
+    private final long durationMillis;
+
+    CommandResult(List<String> command, int exitCode, String output, String error, boolean timedOut, long durationMillis) {
+        this.command = command;
+        this.exitCode = exitCode;
+        this.output = output;
+        this.error = error;
+        this.timedOut = timedOut;
+        this.durationMillis = durationMillis;
+    }
+
+    public List<String> getCommand() {
+        return command;
+    }
+
+    /**
+     * 退出代码，超时被终止时为 -1。
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * 标准输出，超过捕获上限的部分被截断。
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * 标准错误，超过捕获上限的部分被截断。
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * 是否在超时前正常退出且退出代码为 0。
+     */
+    public boolean isSuccess() {
+        return !timedOut && exitCode == 0;
+    }
+
+    /**
+     * 命令行的可读形式，用于提示与日志。
+     */
+    public String getCommandLine() {
+        return String.join(" ", command);
+    }
+}
@@ -0,0 +1,264 @@
+package org.CleanerKing.Exec;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 外部命令执行服务：命令以参数数组给出，不经过字符串拆分；每条命令可设超时，捕获输出与退出代码。
+ *
+ * 输出由共享线程池中复用的线程读取，不再为每个进程新建线程；同时运行的进程数有上限，
+ * 超出时调用方等待空位。runAsync() 在后台执行，调用线程（如菜单线程）不必等待；
+ * launch() 用于启动图形工具或 start 命令，输出直接丢弃，只占用启动时的空位。
+ *
+ * 读取线程与后台执行线程各不超过进程数上限的两倍，线程都在使用时由调用线程自己执行。
+ * 启动的程序由一个线程定期检查是否结束，运行期间不占用线程。
+ */
+public class ProcessRunner implements Closeable {
+
+    /**
+     * 不限制执行时间。
+     */
+    public static final long NO_TIMEOUT = 0;
+
+    // 每个输出流最多捕获的字符数，超出部分仍会逐行交给回调
+    private static final int CAPTURE_LIMIT_CHARS = 64 * 1024;
+    // 进程退出后等待输出读完的时间：被启动的子程序可能继承了输出管道而长期不关闭
+    private static final long DRAIN_MILLIS = 500;
+    // 超时后先正常终止，等待该时间后强制终止
+    private static final long DESTROY_GRACE_MILLIS = 1000;
+    // 检查 launch() 启动的程序是否结束的间隔
+    private static final long REAP_INTERVAL_MILLIS = 500;
+    private static final long IDLE_THREAD_SECONDS = 60;
+
+    private static final File NULL_DEVICE = new File(System.getProperty("os.name", "").startsWith("Windows") ? "NUL" : "/dev/null");
+
+    private final Semaphore slots;
+    private final ExecutorService gobblers;
+    private final ExecutorService launcher;
+    private final ScheduledExecutorService reaper;
+    private final Charset charset;
+
+    /**
+     * @param maxConcurrent 同时运行的进程数上限
+     * @param charset       命令输出的编码
+     */
+    public ProcessRunner(int maxConcurrent, Charset charset) {
+        int max = Math.max(1, maxConcurrent);
+        this.slots = new Semaphore(max, true);
+        // 每个进程两个读取线程；被子程序长期占用的管道只占住一个线程，全部占满时由调用线程读取
+        this.gobblers = boundedPool(max * 2, "process-output");
+        this.launcher = boundedPool(max * 2, "process-launch");
+        this.reaper = Executors.newSingleThreadScheduledExecutor(daemonThreads("process-reaper"));
+        this.charset = charset;
+    }
+
+    /**
+     * 最多 maxThreads 个线程、空闲后回收的线程池；不排队，线程都在使用时由提交任务的线程执行。
+     * 与 CallerRunsPolicy 不同，关闭后提交的任务抛出 RejectedExecutionException 而不是被静默丢弃，
+     * 调用方不会等待一个永远不会完成的 Future。
+     */
+    private static ExecutorService boundedPool(int maxThreads, String prefix) {
+        return new ThreadPoolExecutor(0, maxThreads, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemonThreads(prefix), (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("ProcessRunner 已关闭");
+                    }
+                    task.run();
+                });
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger id = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + id.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 执行命令并等待结束。
+     *
+     * @param command       命令及参数
+     * @param timeoutMillis 超时时间，超时后终止进程；NO_TIMEOUT 表示一直等待
+     * @param lineConsumer  逐行接收标准输出与标准错误，可为 null
+     * @throws IOException 无法启动进程
+     */
+    public CommandResult run(List<String> command, long timeoutMillis, Consumer<String> lineConsumer) throws IOException, InterruptedException {
+        slots.acquire();
+        try {
+            return execute(Collections.unmodifiableList(new ArrayList<>(command)), timeoutMillis, lineConsumer);
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * 在后台执行命令，立即返回。
+     */
+    public Future<CommandResult> runAsync(List<String> command, long timeoutMillis, Consumer<String> lineConsumer) {
+        return launcher.submit(() -> run(command, timeoutMillis, lineConsumer));
+    }
+
+    /**
+     * 启动不需要输出的程序（图形工具、start 启动的窗口），立即返回。
+     * 输出丢弃，不创建管道；进程数上限只在启动时占用，程序运行期间不占用。
+     *
+     * @return 程序结束时完成的结果，输出为空
+     */
+    public Future<CommandResult> launch(List<String> command) {
+        List<String> cmd = Collections.unmodifiableList(new ArrayList<>(command));
+        CompletableFuture<CommandResult> result = new CompletableFuture<>();
+        launcher.execute(() -> {
+            long start = System.nanoTime();
+            Process process;
+            try {
+                slots.acquire();
+                try {
+                    process = new ProcessBuilder(cmd)
+                            .redirectInput(ProcessBuilder.Redirect.from(NULL_DEVICE))
+                            .redirectOutput(ProcessBuilder.Redirect.appendTo(NULL_DEVICE))
+                            .redirectError(ProcessBuilder.Redirect.appendTo(NULL_DEVICE))
+                            .start();
+                } finally {
+                    slots.release();
+                }
+            } catch (IOException | InterruptedException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            awaitExit(process, cmd, start, result);
+        });
+        return result;
+    }
+
+    /**
+     * 程序结束时完成 result；未结束时稍后再由 reaper 线程检查。
+     */
+    private void awaitExit(Process process, List<String> cmd, long start, CompletableFuture<CommandResult> result) {
+        if (!process.isAlive()) {
+            result.complete(new CommandResult(cmd, process.exitValue(), "", "", false, (System.nanoTime() - start) / 1_000_000));
+            return;
+        }
+        try {
+            reaper.schedule(() -> awaitExit(process, cmd, start, result), REAP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭，不再跟踪
+            result.cancel(false);
+        }
+    }
+
+    private CommandResult execute(List<String> command, long timeoutMillis, Consumer<String> lineConsumer) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).start();
+        // 不向命令提供输入，等待确认的命令会读到输入结束而不是一直等待
+        process.getOutputStream().close();
+
+        StringBuilder output = new StringBuilder();
+        StringBuilder error = new StringBuilder();
+        Future<?> outReader = gobblers.submit(() -> gobble(process.getInputStream(), output, lineConsumer));
+        Future<?> errReader = gobblers.submit(() -> gobble(process.getErrorStream(), error, lineConsumer));
+
+        boolean exited;
+        try {
+            if (timeoutMillis > 0) {
+                exited = process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+            } else {
+                process.waitFor();
+                exited = true;
+            }
+        } catch (InterruptedException e) {
+            terminate(process);
+            throw e;
+        }
+        if (!exited) {
+            terminate(process);
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_MILLIS);
+        drain(outReader, process.getInputStream(), drainDeadline);
+        drain(errReader, process.getErrorStream(), drainDeadline);
+
+        int exitCode = exited ? process.exitValue() : -1;
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        synchronized (output) {
+            synchronized (error) {
+                return new CommandResult(command, exitCode, output.toString(), error.toString(), !exited, elapsed);
+            }
+        }
+    }
+
+    private static void terminate(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(DESTROY_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private void gobble(InputStream in, StringBuilder capture, Consumer<String> lineConsumer) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                synchronized (capture) {
+                    if (capture.length() < CAPTURE_LIMIT_CHARS) {
+                        capture.append(line, 0, Math.min(line.length(), CAPTURE_LIMIT_CHARS - capture.length())).append('\n');
+                    }
+                }
+                if (lineConsumer != null) {
+                    lineConsumer.accept(line);
+                }
+            }
+        } catch (IOException e) {
+            // 流被关闭（进程结束或放弃读取）时停止
+        }
+    }
+
+    /**
+     * 等待输出读取结束；到达 deadline 仍未结束时关闭流，放弃剩余输出。
+     */
+    private static void drain(Future<?> reader, InputStream stream, long deadline) throws InterruptedException {
+        try {
+            reader.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            try {
+                stream.close();
+            } catch (IOException ignore) {
+            }
+            reader.cancel(true);
+        } catch (ExecutionException e) {
+            // gobble() 不抛出异常
+        }
+    }
+
+    /**
+     * 停止读取线程与后台执行线程，正在运行的进程不受影响。
+     */
+    @Override
+    public void close() {
+        launcher.shutdownNow();
+        gobblers.shutdownNow();
+        reaper.shutdownNow();
+    }
+}
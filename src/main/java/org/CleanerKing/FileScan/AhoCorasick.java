@@ -0,0 +1,179 @@
+package org.CleanerKing.FileScan;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aho-Corasick 多模式匹配自动机，构建为完整的确定性状态转移表。
+ *
+ * 模式由整数符号组成（字符或字节）。构建时把出现过的符号压缩为连续的符号类，
+ * 未出现的符号统一归为第 0 类，因此转移表大小只与模式本身有关。匹配时每个输入符号
+ * 只做一次查表，与模式数量无关，整体为线性时间。每个模式对应一个关键词编号，
+ * 多个模式（例如同一关键词的不同编码）可以对应同一个关键词。
+ */
+public final class AhoCorasick {
+
+    private final int[] symbolClass;
+    private final int classCount;
+    private final int[] delta;
+    private final int[][] outputs;
+
+    /**
+     * @param alphabetSize   符号取值范围 [0, alphabetSize)
+     * @param patterns       模式列表
+     * @param patternKeyword 每个模式对应的关键词编号
+     */
+    public AhoCorasick(int alphabetSize, List<int[]> patterns, int[] patternKeyword) {
+        this(alphabetSize, patterns, patternKeyword, null);
+    }
+
+    /**
+     * @param fold 输入符号的折叠表（如大小写折叠），为null时不折叠；模式本身应已折叠
+     */
+    public AhoCorasick(int alphabetSize, List<int[]> patterns, int[] patternKeyword, int[] fold) {
+        // 压缩符号类
+        int[] patternClass = new int[alphabetSize];
+        int next = 1;
+        int totalLength = 0;
+        for (int[] p : patterns) {
+            totalLength += p.length;
+            for (int sym : p) {
+                if (patternClass[sym] == 0) patternClass[sym] = next++;
+            }
+        }
+        this.classCount = next;
+        if (fold != null) {
+            // 输入符号先折叠再归类，匹配时无需额外处理
+            int[] inputClass = new int[alphabetSize];
+            for (int sym = 0; sym < alphabetSize; sym++) {
+                inputClass[sym] = patternClass[fold[sym]];
+            }
+            this.symbolClass = inputClass;
+        } else {
+            this.symbolClass = patternClass;
+        }
+
+        // 构建字典树，-1 表示尚无转移
+        int maxStates = totalLength + 1;
+        int[] table = new int[maxStates * classCount];
+        Arrays.fill(table, -1);
+        int[][] out = new int[maxStates][];
+        int states = 1;
+        for (int i = 0; i < patterns.size(); i++) {
+            int[] p = patterns.get(i);
+            if (p.length == 0) continue;
+            int s = 0;
+            for (int sym : p) {
+                int idx = s * classCount + patternClass[sym];
+                if (table[idx] < 0) {
+                    table[idx] = states++;
+                }
+                s = table[idx];
+            }
+            out[s] = append(out[s], patternKeyword[i]);
+        }
+
+        // 广度优先计算失败链接，同时补全为确定性转移
+        int[] failure = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < classCount; c++) {
+            int t = table[c];
+            if (t < 0) {
+                table[c] = 0;
+            } else {
+                failure[t] = 0;
+                queue.add(t);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            out[s] = merge(out[s], out[failure[s]]);
+            for (int c = 0; c < classCount; c++) {
+                int idx = s * classCount + c;
+                int t = table[idx];
+                if (t < 0) {
+                    table[idx] = table[failure[s] * classCount + c];
+                } else {
+                    failure[t] = table[failure[s] * classCount + c];
+                    queue.add(t);
+                }
+            }
+        }
+
+        this.delta = Arrays.copyOf(table, states * classCount);
+        this.outputs = Arrays.copyOf(out, states);
+    }
+
+    private static int[] append(int[] arr, int value) {
+        if (arr == null) return new int[]{value};
+        for (int v : arr) {
+            if (v == value) return arr;
+        }
+        int[] copy = Arrays.copyOf(arr, arr.length + 1);
+        copy[arr.length] = value;
+        return copy;
+    }
+
+    private static int[] merge(int[] a, int[] b) {
+        if (b == null) return a;
+        int[] result = a;
+        for (int v : b) {
+            result = append(result, v);
+        }
+        return result;
+    }
+
+    /**
+     * 读入一个符号后的状态，初始状态为 0。
+     */
+    public int step(int state, int symbol) {
+        return delta[state * classCount + symbolClass[symbol]];
+    }
+
+    /**
+     * 匹配字符序列（按 Character.toLowerCase 折叠），把出现的关键词在 found 中置为 true。
+     *
+     * @param remaining found 中尚为 false 的数量
+     * @return 匹配后仍未找到的关键词数量
+     */
+    public int matchLowerCase(CharSequence text, boolean[] found, int remaining) {
+        int s = 0;
+        for (int i = 0; i < text.length() && remaining > 0; i++) {
+            s = delta[s * classCount + symbolClass[Character.toLowerCase(text.charAt(i))]];
+            int[] o = outputs[s];
+            if (o != null) {
+                remaining = report(o, found, remaining);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * 匹配字节缓冲区 [position, limit) 的内容，用法同 matchLowerCase。
+     */
+    public int matchBytes(ByteBuffer buf, boolean[] found, int remaining) {
+        int s = 0;
+        int limit = buf.limit();
+        for (int i = buf.position(); i < limit && remaining > 0; i++) {
+            s = delta[s * classCount + symbolClass[buf.get(i) & 0xFF]];
+            int[] o = outputs[s];
+            if (o != null) {
+                remaining = report(o, found, remaining);
+            }
+        }
+        return remaining;
+    }
+
+    private static int report(int[] keywords, boolean[] found, int remaining) {
+        for (int k : keywords) {
+            if (!found[k]) {
+                found[k] = true;
+                remaining--;
+            }
+        }
+        return remaining;
+    }
+}
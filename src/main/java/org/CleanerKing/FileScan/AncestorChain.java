@@ -0,0 +1,34 @@
+package org.CleanerKing.FileScan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 祖先目录链，用于检测跟随链接时产生的循环（与 walkFileTree 的判断方式一致）。
+ */
+final class AncestorChain {
+    final Path dir;
+    final Object fileKey;
+    final AncestorChain parent;
+
+    AncestorChain(Path dir, Object fileKey, AncestorChain parent) {
+        this.dir = dir;
+        this.fileKey = fileKey;
+        this.parent = parent;
+    }
+
+    boolean isLoop(Path entry, Object key) {
+        for (AncestorChain a = this; a != null; a = a.parent) {
+            if (key != null && a.fileKey != null) {
+                if (key.equals(a.fileKey)) return true;
+            } else {
+                try {
+                    if (Files.isSameFile(entry, a.dir)) return true;
+                } catch (IOException | SecurityException ignore) {
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,81 @@
+package org.CleanerKing.FileScan;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 二进制文件识别：先查已知二进制扩展名表，不认识的扩展名再检查文件开头的几 KB。
+ */
+public final class BinarySniffer {
+
+    /**
+     * 用于判断的文件头字节数。
+     */
+    public static final int SNIFF_BYTES = 4096;
+
+    private static final Set<String> BINARY_EXTENSIONS = new HashSet<>(Arrays.asList(
+            // 镜像与虚拟磁盘
+            "iso", "img", "vhd", "vhdx", "vmdk", "vdi", "dmg", "wim", "esd",
+            // 可执行文件与库
+            "exe", "dll", "sys", "ocx", "msi", "msp", "cab", "lib", "obj", "pdb", "so", "class", "pyc", "o", "a",
+            // 压缩包
+            "zip", "7z", "rar", "gz", "tgz", "bz2", "xz", "zst", "jar", "war", "apk", "nupkg",
+            // 图片
+            "jpg", "jpeg", "png", "gif", "bmp", "ico", "webp", "tif", "tiff", "psd", "heic",
+            // 音视频
+            "mp3", "flac", "wav", "aac", "ogg", "wma", "m4a", "mp4", "mkv", "avi", "mov", "wmv", "flv", "webm", "m4v", "ts",
+            // 其他常见二进制数据
+            "bin", "dat", "db", "sqlite", "mdb", "pak", "pst", "ost", "etl", "evtx", "hiberfil", "swp", "ttf", "otf", "woff", "woff2"
+    ));
+
+    private BinarySniffer() {
+    }
+
+    /**
+     * 文件扩展名是否属于已知的二进制类型。
+     */
+    public static boolean hasBinaryExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || dot == fileName.length() - 1) return false;
+        return BINARY_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase());
+    }
+
+    /**
+     * 根据文件头判断是否为二进制内容。
+     *
+     * 带 BOM 的文件视为文本；含有 NUL 字节且不符合 UTF-16 的交替零字节特征，
+     * 或控制字符比例过高时视为二进制。
+     */
+    public static boolean looksBinary(ByteBuffer head) {
+        int n = Math.min(head.limit(), SNIFF_BYTES);
+        if (n == 0) return false;
+        int b0 = head.get(0) & 0xFF;
+        int b1 = n > 1 ? head.get(1) & 0xFF : -1;
+        if ((b0 == 0xEF && b1 == 0xBB) || (b0 == 0xFF && b1 == 0xFE) || (b0 == 0xFE && b1 == 0xFF)) {
+            return false;
+        }
+
+        int zerosEven = 0;
+        int zerosOdd = 0;
+        int control = 0;
+        for (int i = 0; i < n; i++) {
+            int b = head.get(i) & 0xFF;
+            if (b == 0) {
+                if ((i & 1) == 0) zerosEven++;
+                else zerosOdd++;
+            } else if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                control++;
+            }
+        }
+        int zeros = zerosEven + zerosOdd;
+        if (zeros > 0) {
+            // 无 BOM 的 UTF-16 文本：零字节几乎全部落在同一奇偶位置上
+            int half = n / 2;
+            boolean utf16Like = (zerosOdd > half * 0.6 && zerosEven == 0) || (zerosEven > half * 0.6 && zerosOdd == 0);
+            return !utf16Like;
+        }
+        return control * 10 > n;
+    }
+}
@@ -0,0 +1,251 @@
+package org.CleanerKing.FileScan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 字节级文件内容关键词扫描器。
+ *
+ * 关键词在构造时按 UTF-8、GBK、UTF-16LE、UTF-16BE 编码成字节模式并编译为 Aho-Corasick
+ * 自动机，所有关键词在一次遍历中同时查找。ASCII 字母按字节忽略大小写。
+ *
+ * 文件经 FileChannel 分块读入线程本地的直接缓冲区，直接在字节上匹配，
+ * 不做字符解码，也不为每行分配字符串。相邻块之间保留（最长模式长度 - 1）字节的重叠，
+ * 跨块的关键词不会漏掉。每个文件最多扫描 maxBytes 字节。
+ *
+ * 不使用内存映射：映射在回收前一直存在，Windows 上会使随后的删除失败。
+ *
+ * 除非强制扫描，已知二进制扩展名的文件直接跳过；其他文件先检查开头几 KB，
+ * 看起来是二进制的只扫描开头一小段。跳过的字节数会被统计下来。
+ */
+public class ContentScanner {
+
+    // 每次读入的块大小
+    private static final int CHUNK_BYTES = 256 * 1024;
+    // 内容看起来是二进制（扩展名未知）的文件只扫描这么多字节
+    private static final long BINARY_CAP_BYTES = 64 * 1024;
+
+    private static final int[] FOLD = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            FOLD[i] = i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i;
+        }
+    }
+
+    /**
+     * 支持的内容编码。
+     */
+    private enum Encoding {
+        UTF_8(StandardCharsets.UTF_8),
+        GBK(Charset.isSupported("GBK") ? Charset.forName("GBK") : null),
+        UTF_16LE(StandardCharsets.UTF_16LE),
+        UTF_16BE(StandardCharsets.UTF_16BE);
+
+        final Charset charset;
+
+        Encoding(Charset charset) {
+            this.charset = charset;
+        }
+    }
+
+    private final int keywordCount;
+    private final long maxBytes;
+    private final boolean scanBinaries;
+    // 无 BOM 时使用全部编码的自动机，有 BOM 时只使用对应编码的自动机
+    private final AhoCorasick anyEncoding;
+    private final AhoCorasick[] byEncoding = new AhoCorasick[Encoding.values().length];
+    // 相邻块之间保留的字节数
+    private final int overlap;
+
+    private final ThreadLocal<ByteBuffer> readBuffer;
+
+    private final AtomicLong bytesScanned = new AtomicLong();
+    private final AtomicLong bytesAvoided = new AtomicLong();
+    private final AtomicInteger binaryFiles = new AtomicInteger();
+
+    /**
+     * @param keywords     关键词（不区分大小写）
+     * @param maxBytes     每个文件最多扫描的字节数
+     * @param scanBinaries 是否强制完整扫描二进制文件
+     */
+    public ContentScanner(List<String> keywords, long maxBytes, boolean scanBinaries) {
+        this.keywordCount = keywords.size();
+        this.maxBytes = Math.max(1, Math.min(maxBytes, Integer.MAX_VALUE));
+        this.scanBinaries = scanBinaries;
+
+        List<int[]> allPatterns = new ArrayList<>();
+        List<Integer> allKeywords = new ArrayList<>();
+        for (Encoding enc : Encoding.values()) {
+            if (enc.charset == null) continue;
+            List<int[]> patterns = new ArrayList<>();
+            List<Integer> patternKeywords = new ArrayList<>();
+            for (int k = 0; k < keywords.size(); k++) {
+                String kw = keywords.get(k);
+                // 非 ASCII 字母无法按字节折叠，因此小写与大写形式各生成一个模式
+                Set<String> variants = new LinkedHashSet<>();
+                variants.add(kw.toLowerCase());
+                variants.add(kw.toUpperCase());
+                for (String v : variants) {
+                    int[] p = fold(v.getBytes(enc.charset));
+                    if (p.length == 0) continue;
+                    patterns.add(p);
+                    patternKeywords.add(k);
+                }
+            }
+            byEncoding[enc.ordinal()] = new AhoCorasick(256, patterns, toArray(patternKeywords), FOLD);
+            allPatterns.addAll(patterns);
+            allKeywords.addAll(patternKeywords);
+        }
+        this.anyEncoding = new AhoCorasick(256, allPatterns, toArray(allKeywords), FOLD);
+
+        int longest = 1;
+        for (int[] p : allPatterns) {
+            longest = Math.max(longest, p.length);
+        }
+        this.overlap = longest - 1;
+        int capacity = Math.max(CHUNK_BYTES, 2 * longest);
+        this.readBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(capacity));
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] arr = new int[list.size()];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = list.get(i);
+        }
+        return arr;
+    }
+
+    private static int[] fold(byte[] bytes) {
+        int[] symbols = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            symbols[i] = FOLD[bytes[i] & 0xFF];
+        }
+        return symbols;
+    }
+
+    /**
+     * 扫描文件内容，把找到的关键词在 found 中置为 true。
+     *
+     * @param found 调用前已确定找到的关键词（例如文件名中已包含的）
+     * @return 所有关键词是否都已找到
+     */
+    public boolean containsAll(Path file, boolean[] found) {
+        int remaining = 0;
+        for (int k = 0; k < keywordCount; k++) {
+            if (!found[k]) remaining++;
+        }
+        if (remaining == 0) return true;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), maxBytes);
+            if (size <= 0) return false;
+
+            // 已知二进制扩展名：不读取任何内容即可决定
+            String fileName = file.getFileName() != null ? file.getFileName().toString() : "";
+            boolean binary = !scanBinaries && BinarySniffer.hasBinaryExtension(fileName);
+            if (binary) {
+                binaryFiles.incrementAndGet();
+                bytesAvoided.addAndGet(size);
+                return false;
+            }
+
+            ByteBuffer buf = readBuffer.get();
+            buf.clear();
+            buf.limit((int) Math.min(size, BinarySniffer.SNIFF_BYTES));
+            long position = read(channel, buf, 0);
+            buf.flip();
+            if (!scanBinaries && BinarySniffer.looksBinary(buf)) {
+                // 扩展名未知但内容像二进制：只扫描开头一小段
+                binaryFiles.incrementAndGet();
+                long capped = Math.min(size, BINARY_CAP_BYTES);
+                bytesAvoided.addAndGet(size - capped);
+                size = capped;
+            }
+            bytesScanned.addAndGet(size);
+
+            // 编码由开头的 BOM 决定，之后各块使用同一个自动机
+            AhoCorasick automaton = selectAutomaton(buf);
+            int carried = buf.limit();
+            while (true) {
+                buf.limit((int) Math.min(buf.capacity(), carried + (size - position)));
+                buf.position(carried);
+                long read = read(channel, buf, position);
+                position += read;
+                boolean end = position >= size || buf.hasRemaining();
+                buf.flip();
+                remaining = automaton.matchBytes(buf, found, remaining);
+                if (remaining == 0) return true;
+                if (end) return false;
+                // 末尾的重叠部分移到缓冲区开头，与下一块一起匹配
+                int keep = Math.min(overlap, buf.limit());
+                buf.position(buf.limit() - keep);
+                buf.compact();
+                carried = keep;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 从文件的 position 处读到 buf 的 limit 为止或文件结束，返回读取的字节数。
+     */
+    private static long read(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        long total = 0;
+        int n;
+        while (buf.hasRemaining() && (n = channel.read(buf, position + total)) > 0) {
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * 已扫描的内容字节数。
+     */
+    public long getBytesScanned() {
+        return bytesScanned.get();
+    }
+
+    /**
+     * 因二进制识别而避免读取的字节数。
+     */
+    public long getBytesAvoided() {
+        return bytesAvoided.get();
+    }
+
+    /**
+     * 被识别为二进制而跳过或截断扫描的文件数。
+     */
+    public int getBinaryFiles() {
+        return binaryFiles.get();
+    }
+
+    /**
+     * 根据 BOM 确定文件编码；没有 BOM 时所有编码都参与匹配。
+     */
+    private AhoCorasick selectAutomaton(ByteBuffer buf) {
+        int b0 = buf.limit() > 0 ? buf.get(0) & 0xFF : -1;
+        int b1 = buf.limit() > 1 ? buf.get(1) & 0xFF : -1;
+        int b2 = buf.limit() > 2 ? buf.get(2) & 0xFF : -1;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            return byEncoding[Encoding.UTF_8.ordinal()];
+        } else if (b0 == 0xFF && b1 == 0xFE) {
+            return byEncoding[Encoding.UTF_16LE.ordinal()];
+        } else if (b0 == 0xFE && b1 == 0xFF) {
+            return byEncoding[Encoding.UTF_16BE.ordinal()];
+        }
+        return anyEncoding;
+    }
+}
@@ -0,0 +1,253 @@
+package org.CleanerKing.FileScan;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 磁盘占用树（类似 ncdu）：记录根目录下每个目录的递归大小与文件数。
+ *
+ * 树只保存目录，节点用编号表示，所有字段存放在基本类型数组中（父节点、第一个子节点、
+ * 下一个兄弟节点、名称编号、递归大小与文件数、直属文件大小与文件数），
+ * 不为每个目录创建对象。名称保存在 PathTable 的名称池中，同名目录（如 cache、node_modules）只存一份。遍历时子目录访问完毕后把总量加到父目录上，
+ * 因此浏览、下钻和重新排序都只读数组，不再访问磁盘。
+ *
+ * 作为 FileTreeWalker 的访问器构建，串行与并行遍历均可；构建完成后只读。
+ */
+public class DiskUsageTree implements FileTreeWalker.Visitor {
+
+    /**
+     * 排序方式。
+     */
+    public enum Order {
+        SIZE, FILE_COUNT, NAME
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Path root;
+
+    // 以下数组按节点编号索引，扩容与写入都在 this 上同步
+    private int count;
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private int[] firstChild = new int[INITIAL_CAPACITY];
+    private int[] nextSibling = new int[INITIAL_CAPACITY];
+    private int[] childCount = new int[INITIAL_CAPACITY];
+    private int[] nameId = new int[INITIAL_CAPACITY];
+    private long[] totalSize = new long[INITIAL_CAPACITY];
+    private long[] totalFiles = new long[INITIAL_CAPACITY];
+    private long[] ownSize = new long[INITIAL_CAPACITY];
+    private long[] ownFiles = new long[INITIAL_CAPACITY];
+    private final PathTable names = new PathTable();
+
+    // 正在遍历中的目录，访问完毕后移除
+    private final ConcurrentHashMap<Path, Pending> pending = new ConcurrentHashMap<>();
+    private volatile int failedCount;
+
+    /**
+     * 遍历中目录的累加器。
+     */
+    private static final class Pending {
+        final int id;
+        long size;
+        long files;
+        long ownSize;
+        long ownFiles;
+
+        Pending(int id) {
+            this.id = id;
+        }
+
+        synchronized void addFile(long bytes) {
+            size += bytes;
+            files++;
+            ownSize += bytes;
+            ownFiles++;
+        }
+
+        synchronized void addChild(long bytes, long fileCount) {
+            size += bytes;
+            files += fileCount;
+        }
+    }
+
+    public DiskUsageTree(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public boolean visitFile(Path file, BasicFileAttributes attrs) {
+        if (attrs.isDirectory()) return true;
+        Pending p = file.getParent() != null ? pending.get(file.getParent()) : null;
+        if (p != null) {
+            p.addFile(attrs.size());
+        }
+        return true;
+    }
+
+    @Override
+    public void visitFileFailed(Path file, IOException exc) {
+        synchronized (this) {
+            failedCount++;
+        }
+    }
+
+    @Override
+    public void preVisitDirectory(Path dir) {
+        Pending parentPending = dir.equals(root) || dir.getParent() == null ? null : pending.get(dir.getParent());
+        String name = dir.equals(root) || dir.getFileName() == null ? dir.toString() : dir.getFileName().toString();
+        int id = addNode(parentPending != null ? parentPending.id : -1, names.nameId(name));
+        pending.put(dir, new Pending(id));
+    }
+
+    @Override
+    public void postVisitDirectory(Path dir) {
+        Pending p = pending.remove(dir);
+        if (p == null) return;
+        long size;
+        long files;
+        synchronized (p) {
+            size = p.size;
+            files = p.files;
+            synchronized (this) {
+                totalSize[p.id] = size;
+                totalFiles[p.id] = files;
+                ownSize[p.id] = p.ownSize;
+                ownFiles[p.id] = p.ownFiles;
+            }
+        }
+        Pending parentPending = dir.getParent() != null ? pending.get(dir.getParent()) : null;
+        if (parentPending != null && !dir.equals(root)) {
+            parentPending.addChild(size, files);
+        }
+    }
+
+    private synchronized int addNode(int parentId, int name) {
+        if (count == parent.length) {
+            int capacity = count * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+            nameId = Arrays.copyOf(nameId, capacity);
+            totalSize = Arrays.copyOf(totalSize, capacity);
+            totalFiles = Arrays.copyOf(totalFiles, capacity);
+            ownSize = Arrays.copyOf(ownSize, capacity);
+            ownFiles = Arrays.copyOf(ownFiles, capacity);
+        }
+        int id = count++;
+        nameId[id] = name;
+
+        parent[id] = parentId;
+        firstChild[id] = -1;
+        nextSibling[id] = -1;
+        if (parentId >= 0) {
+            nextSibling[id] = firstChild[parentId];
+            firstChild[parentId] = id;
+            childCount[parentId]++;
+        }
+        return id;
+    }
+
+    /**
+     * 根节点编号；根目录无法打开时返回 -1。
+     */
+    public synchronized int getRoot() {
+        return count > 0 ? 0 : -1;
+    }
+
+    /**
+     * 目录数量。
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 无法访问的文件/目录数。
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public synchronized int getParent(int id) {
+        return parent[id];
+    }
+
+    public synchronized String getName(int id) {
+        return names.nameOf(nameId[id]);
+    }
+
+    /**
+     * 节点的完整路径。
+     */
+    public synchronized Path getPath(int id) {
+        int[] chain = new int[16];
+        int depth = 0;
+        for (int n = id; parent[n] >= 0; n = parent[n]) {
+            if (depth == chain.length) chain = Arrays.copyOf(chain, depth * 2);
+            chain[depth++] = n;
+        }
+        Path path = root;
+        for (int i = depth - 1; i >= 0; i--) {
+            path = path.resolve(getName(chain[i]));
+        }
+        return path;
+    }
+
+    /**
+     * 递归大小（字节）。
+     */
+    public synchronized long getTotalSize(int id) {
+        return totalSize[id];
+    }
+
+    /**
+     * 递归文件数。
+     */
+    public synchronized long getTotalFiles(int id) {
+        return totalFiles[id];
+    }
+
+    /**
+     * 直属于该目录（不含子目录）的文件大小。
+     */
+    public synchronized long getOwnSize(int id) {
+        return ownSize[id];
+    }
+
+    /**
+     * 直属于该目录（不含子目录）的文件数。
+     */
+    public synchronized long getOwnFiles(int id) {
+        return ownFiles[id];
+    }
+
+    /**
+     * 按指定方式排序的子目录编号，只读内存中的数组。
+     */
+    public synchronized int[] getChildren(int id, Order order) {
+        int[] children = new int[childCount[id]];
+        int i = 0;
+        for (int c = firstChild[id]; c >= 0; c = nextSibling[c]) {
+            children[i++] = c;
+        }
+        // 子目录数量通常不大，装箱排序即可
+        Integer[] boxed = new Integer[children.length];
+        for (int j = 0; j < children.length; j++) boxed[j] = children[j];
+        switch (order) {
+            case SIZE:
+                Arrays.sort(boxed, (a, b) -> Long.compare(totalSize[b], totalSize[a]));
+                break;
+            case FILE_COUNT:
+                Arrays.sort(boxed, (a, b) -> Long.compare(totalFiles[b], totalFiles[a]));
+                break;
+            default:
+                Arrays.sort(boxed, (a, b) -> getName(a).compareToIgnoreCase(getName(b)));
+        }
+        for (int j = 0; j < children.length; j++) children[j] = boxed[j];
+        return children;
+    }
+}
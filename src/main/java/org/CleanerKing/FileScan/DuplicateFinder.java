@@ -0,0 +1,278 @@
+package org.CleanerKing.FileScan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重复文件查找，分三级逐步缩小范围：
+ *
+ * 1. 按文件大小分桶，大小唯一的文件不可能重复；
+ * 2. 对大小相同的候选文件只哈希开头和结尾各 64 KB；
+ * 3. 部分哈希仍然相同的文件才做完整哈希。
+ *
+ * 哈希在线程池中并行执行，每个线程复用一块大缓冲区。
+ *
+ * 遍历会跟随符号链接与目录联接，同一个物理文件可能以多个路径出现；
+ * 哈希前先把条目路径换成真实路径并按真实路径去重。硬链接的真实路径不同，
+ * 只在最终的重复组内按文件标识（或 Files.isSameFile）合并，
+ * 因此结果中的每个文件都是不同的物理文件，删除副本不会删掉唯一的一份。
+ */
+public class DuplicateFinder {
+
+    private static final int PARTIAL_BYTES = 64 * 1024;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    // 组内顺序：真实路径短的在前，长度相同时按字典序，保留的总是第一个
+    private static final Comparator<Path> KEEP_ORDER = Comparator.comparingInt((Path p) -> p.toString().length())
+            .thenComparing(Path::toString);
+
+    private final int threads;
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private int sizeCandidates;
+    private int partialCandidates;
+    private final AtomicLong bytesHashed = new AtomicLong();
+
+    public DuplicateFinder(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * 查找重复文件。
+     *
+     * @return 重复文件组，每组至少两个内容相同的不同物理文件（路径为真实路径，按 KEEP_ORDER 排列），
+     *         按可释放空间从大到小排序
+     */
+    public List<List<FileEntry>> findDuplicates(Collection<FileEntry> files) throws InterruptedException {
+        // 第一级：按大小分桶
+        Map<Long, List<FileEntry>> bySize = new HashMap<>();
+        for (FileEntry f : files) {
+            if (f.getSize() > 0) {
+                bySize.computeIfAbsent(f.getSize(), k -> new ArrayList<>()).add(f);
+            }
+        }
+        List<List<FileEntry>> groups = new ArrayList<>();
+        for (List<FileEntry> g : bySize.values()) {
+            if (g.size() > 1) {
+                g = collapseAliases(g);
+                if (g.size() > 1) groups.add(g);
+            }
+        }
+        sizeCandidates = countFiles(groups);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // 第二级：头尾部分哈希；不超过两段长度的文件此时已是完整哈希
+            groups = regroup(executor, groups, true);
+            partialCandidates = countFiles(groups);
+
+            // 第三级：完整哈希
+            List<List<FileEntry>> needFull = new ArrayList<>();
+            List<List<FileEntry>> result = new ArrayList<>();
+            for (List<FileEntry> g : groups) {
+                if (g.get(0).getSize() <= 2L * PARTIAL_BYTES) {
+                    result.add(g);
+                } else {
+                    needFull.add(g);
+                }
+            }
+            result.addAll(regroup(executor, needFull, false));
+
+            List<List<FileEntry>> distinct = new ArrayList<>(result.size());
+            for (List<FileEntry> g : result) {
+                g = collapseHardLinks(g);
+                if (g.size() > 1) {
+                    g.sort((a, b) -> KEEP_ORDER.compare(a.getPath(), b.getPath()));
+                    distinct.add(g);
+                }
+            }
+            result = distinct;
+            result.sort((a, b) -> Long.compare(b.get(0).getSize() * (b.size() - 1), a.get(0).getSize() * (a.size() - 1)));
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 大小相同的候选文件数。
+     */
+    public int getSizeCandidates() {
+        return sizeCandidates;
+    }
+
+    /**
+     * 部分哈希后仍需比较的文件数。
+     */
+    public int getPartialCandidates() {
+        return partialCandidates;
+    }
+
+    /**
+     * 累计哈希的字节数。
+     */
+    public long getBytesHashed() {
+        return bytesHashed.get();
+    }
+
+    /**
+     * 把条目路径换成真实路径，合并经由符号链接或目录联接到达同一路径的条目；无法解析的文件不参与比较。
+     */
+    private static List<FileEntry> collapseAliases(List<FileEntry> bucket) {
+        Map<Path, FileEntry> byRealPath = new LinkedHashMap<>();
+        for (FileEntry f : bucket) {
+            try {
+                Path real = f.getPath().toRealPath();
+                byRealPath.putIfAbsent(real, new FileEntry(real, f.getSize(), f.getLastModified()));
+            } catch (IOException ignore) {
+            }
+        }
+        return new ArrayList<>(byRealPath.values());
+    }
+
+    /**
+     * 合并内容相同的组中互为硬链接的条目，保留 KEEP_ORDER 在前的路径。
+     * 有文件标识时按标识判断，否则（如 Windows）与已保留的条目逐个用 Files.isSameFile 比较。
+     */
+    private static List<FileEntry> collapseHardLinks(List<FileEntry> group) {
+        Map<Object, FileEntry> byKey = new HashMap<>();
+        List<FileEntry> unkeyed = new ArrayList<>();
+        for (FileEntry f : group) {
+            Object key;
+            try {
+                key = Files.readAttributes(f.getPath(), BasicFileAttributes.class).fileKey();
+            } catch (IOException e) {
+                key = null;
+            }
+            if (key != null) {
+                byKey.merge(key, f, DuplicateFinder::preferred);
+                continue;
+            }
+            boolean alias = false;
+            for (int i = 0; i < unkeyed.size() && !alias; i++) {
+                if (isSameFile(unkeyed.get(i).getPath(), f.getPath())) {
+                    unkeyed.set(i, preferred(unkeyed.get(i), f));
+                    alias = true;
+                }
+            }
+            if (!alias) {
+                unkeyed.add(f);
+            }
+        }
+        List<FileEntry> result = new ArrayList<>(byKey.values());
+        result.addAll(unkeyed);
+        return result;
+    }
+
+    private static FileEntry preferred(FileEntry a, FileEntry b) {
+        return KEEP_ORDER.compare(a.getPath(), b.getPath()) <= 0 ? a : b;
+    }
+
+    private static boolean isSameFile(Path a, Path b) {
+        try {
+            return Files.isSameFile(a, b);
+        } catch (IOException e) {
+            // 无法确定时按不同文件处理：即使是硬链接，删除其中一个名称也不会丢失内容
+            return false;
+        }
+    }
+
+    private static int countFiles(List<List<FileEntry>> groups) {
+        int n = 0;
+        for (List<FileEntry> g : groups) n += g.size();
+        return n;
+    }
+
+    /**
+     * 并行计算组内每个文件的哈希，并按哈希把组拆分，只保留仍有多个文件的组。
+     */
+    private List<List<FileEntry>> regroup(ExecutorService executor, List<List<FileEntry>> groups, boolean partial) throws InterruptedException {
+        List<Future<String>> futures = new ArrayList<>();
+        for (List<FileEntry> g : groups) {
+            for (FileEntry f : g) {
+                futures.add(executor.submit(() -> partial ? partialHash(f) : fullHash(f)));
+            }
+        }
+
+        List<List<FileEntry>> result = new ArrayList<>();
+        int i = 0;
+        for (List<FileEntry> g : groups) {
+            Map<String, List<FileEntry>> byHash = new HashMap<>();
+            for (FileEntry f : g) {
+                String hash;
+                try {
+                    hash = futures.get(i++).get();
+                } catch (ExecutionException e) {
+                    hash = null;
+                }
+                // 读取失败的文件不参与比较
+                if (hash != null) {
+                    byHash.computeIfAbsent(hash, k -> new ArrayList<>()).add(f);
+                }
+            }
+            for (List<FileEntry> sub : byHash.values()) {
+                if (sub.size() > 1) result.add(sub);
+            }
+        }
+        return result;
+    }
+
+    private String partialHash(FileEntry f) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        try (FileChannel ch = FileChannel.open(f.getPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size <= 2L * PARTIAL_BYTES) {
+                digestRange(ch, md, 0, size);
+            } else {
+                digestRange(ch, md, 0, PARTIAL_BYTES);
+                digestRange(ch, md, size - PARTIAL_BYTES, PARTIAL_BYTES);
+            }
+            // 哈希期间文件大小发生变化时与其他文件区分开
+            md.update(Long.toString(size).getBytes());
+        }
+        return toHex(md.digest());
+    }
+
+    private String fullHash(FileEntry f) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        try (FileChannel ch = FileChannel.open(f.getPath(), StandardOpenOption.READ)) {
+            digestRange(ch, md, 0, ch.size());
+        }
+        return toHex(md.digest());
+    }
+
+    private void digestRange(FileChannel ch, MessageDigest md, long position, long length) throws IOException {
+        ByteBuffer buf = buffers.get();
+        long end = position + length;
+        long pos = position;
+        while (pos < end) {
+            buf.clear();
+            buf.limit((int) Math.min(buf.capacity(), end - pos));
+            int n = ch.read(buf, pos);
+            if (n <= 0) break;
+            buf.flip();
+            md.update(buf);
+            pos += n;
+        }
+        bytesHashed.addAndGet(pos - position);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = "0123456789abcdef".toCharArray();
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[i * 2] = hex[(bytes[i] >> 4) & 0xF];
+            out[i * 2 + 1] = hex[bytes[i] & 0xF];
+        }
+        return new String(out);
+    }
+}
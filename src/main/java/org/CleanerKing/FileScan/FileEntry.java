@@ -0,0 +1,69 @@
+package org.CleanerKing.FileScan;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 扫描条目：路径及遍历时已经读到的大小与修改时间，过滤时无需再次访问磁盘。
+ *
+ * 路径可以直接是 Path，也可以是路径表中的编号（来自索引），后者只在需要时才拼接完整路径。
+ */
+public class FileEntry {
+    private final Path path;
+    private final PathTable table;
+    private final int pathId;
+    private final long size;
+    private final long lastModified;
+
+    public FileEntry(Path path, long size, long lastModified) {
+        this.path = path;
+        this.table = null;
+        this.pathId = -1;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public FileEntry(Path path, BasicFileAttributes attrs) {
+        this(path, attrs.size(), attrs.lastModifiedTime().toMillis());
+    }
+
+    public FileEntry(PathTable table, int pathId, long size, long lastModified) {
+        this.path = null;
+        this.table = table;
+        this.pathId = pathId;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 完整路径；路径表条目每次调用都会重新拼接。
+     */
+    public Path getPath() {
+        return path != null ? path : table.toPath(pathId);
+    }
+
+    /**
+     * 最后一级文件名，不拼接完整路径。
+     */
+    public String getFileName() {
+        if (path == null) {
+            return table.getName(pathId);
+        }
+        return path.getFileName() != null ? path.getFileName().toString() : "";
+    }
+
+    /**
+     * 条目在 paths 中的编号，不属于该路径表时添加进去。
+     */
+    public int getPathId(PathTable paths) {
+        return table == paths ? pathId : paths.add(getPath().toAbsolutePath());
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
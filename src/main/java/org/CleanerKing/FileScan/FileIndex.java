@@ -0,0 +1,380 @@
+package org.CleanerKing.FileScan;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 持久化的文件元数据索引（路径、大小、修改时间、文件键），以紧凑的二进制格式保存在
+ * config.properties 同目录下。
+ *
+ * 重新扫描时只对目录做一次 stat：目录修改时间未变化则直接复用上次列出的内容，
+ * 变化了才重新列出该目录。索引在有效期内时可直接从内存回答查询，不访问磁盘。
+ *
+ * 内存中的目录与条目都以 PathTable 编号表示，不保存完整路径字符串。
+ */
+public class FileIndex {
+
+    public static final String INDEX_FILE = "file_index.bin";
+
+    private static final int MAGIC = 0x434B4958; // "CKIX"
+    private static final int VERSION = 1;
+
+    private final Path indexFile;
+    private final Map<String, RootInfo> roots = new HashMap<>();
+    private final PathTable paths = new PathTable();
+    // 键为目录在 paths 中的编号
+    private final ConcurrentHashMap<Integer, DirRecord> dirs = new ConcurrentHashMap<>();
+
+    /**
+     * 已索引的根目录及其扫描参数。
+     */
+    private static final class RootInfo {
+        final int maxDepth;
+        final long scannedAt;
+
+        RootInfo(int maxDepth, long scannedAt) {
+            this.maxDepth = maxDepth;
+            this.scannedAt = scannedAt;
+        }
+    }
+
+    /**
+     * 单个目录的列表快照。
+     */
+    private static final class DirRecord {
+        final long mtime;
+        // 名称在 paths 名称池中的编号
+        final int[] nameIds;
+        final long[] sizes;
+        final long[] mtimes;
+        final String[] fileKeys;
+        final boolean[] directory;
+
+        DirRecord(long mtime, int count) {
+            this.mtime = mtime;
+            this.nameIds = new int[count];
+            this.sizes = new long[count];
+            this.mtimes = new long[count];
+            this.fileKeys = new String[count];
+            this.directory = new boolean[count];
+        }
+    }
+
+    /**
+     * 一次增量刷新的统计。
+     */
+    public static class RefreshStats {
+        private final int listedDirectories;
+        private final int reusedDirectories;
+        private final int failedEntries;
+
+        RefreshStats(int listedDirectories, int reusedDirectories, int failedEntries) {
+            this.listedDirectories = listedDirectories;
+            this.reusedDirectories = reusedDirectories;
+            this.failedEntries = failedEntries;
+        }
+
+        public int getListedDirectories() {
+            return listedDirectories;
+        }
+
+        public int getReusedDirectories() {
+            return reusedDirectories;
+        }
+
+        public int getFailedEntries() {
+            return failedEntries;
+        }
+    }
+
+    private FileIndex(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * 加载索引文件，文件不存在或格式不符时返回空索引。
+     */
+    public static FileIndex load(Path indexFile) {
+        FileIndex index = new FileIndex(indexFile);
+        if (!Files.isRegularFile(indexFile)) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return index;
+            }
+            int rootCount = in.readInt();
+            for (int i = 0; i < rootCount; i++) {
+                String root = in.readUTF();
+                index.roots.put(root, new RootInfo(in.readInt(), in.readLong()));
+            }
+            int dirCount = in.readInt();
+            for (int i = 0; i < dirCount; i++) {
+                String dir = in.readUTF();
+                long mtime = in.readLong();
+                int count = in.readInt();
+                DirRecord rec = new DirRecord(mtime, count);
+                for (int j = 0; j < count; j++) {
+                    rec.nameIds[j] = index.paths.nameId(in.readUTF());
+                    rec.sizes[j] = in.readLong();
+                    rec.mtimes[j] = in.readLong();
+                    String key = in.readUTF();
+                    rec.fileKeys[j] = key.isEmpty() ? null : key;
+                    rec.directory[j] = in.readBoolean();
+                }
+                index.dirs.put(index.paths.add(Paths.get(dir)), rec);
+            }
+        } catch (IOException | InvalidPathException e) {
+            // 索引损坏时视为空索引，下次扫描会重建
+            index.roots.clear();
+            index.dirs.clear();
+        }
+        return index;
+    }
+
+    /**
+     * 保存索引：先写临时文件再改名，避免中途退出留下损坏的索引。
+     */
+    public void save() throws IOException {
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(roots.size());
+            for (Map.Entry<String, RootInfo> e : roots.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeInt(e.getValue().maxDepth);
+                out.writeLong(e.getValue().scannedAt);
+            }
+            out.writeInt(dirs.size());
+            for (Map.Entry<Integer, DirRecord> e : dirs.entrySet()) {
+                DirRecord rec = e.getValue();
+                out.writeUTF(paths.toString(e.getKey()));
+                out.writeLong(rec.mtime);
+                out.writeInt(rec.nameIds.length);
+                for (int j = 0; j < rec.nameIds.length; j++) {
+                    out.writeUTF(paths.nameOf(rec.nameIds[j]));
+                    out.writeLong(rec.sizes[j]);
+                    out.writeLong(rec.mtimes[j]);
+                    out.writeUTF(rec.fileKeys[j] != null ? rec.fileKeys[j] : "");
+                    out.writeBoolean(rec.directory[j]);
+                }
+            }
+        }
+        try {
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 索引使用的路径表，forEach 回调的条目都属于该表。
+     */
+    public PathTable getPaths() {
+        return paths;
+    }
+
+    /**
+     * 根目录索引是否在有效期内且深度足够，可以不访问磁盘直接回答查询。
+     */
+    public boolean isFresh(Path root, int maxDepth, long maxAgeMillis) {
+        RootInfo info = roots.get(key(root));
+        return info != null && info.maxDepth >= maxDepth
+                && System.currentTimeMillis() - info.scannedAt <= maxAgeMillis;
+    }
+
+    /**
+     * 增量刷新根目录下的索引：只重新列出修改时间发生变化的目录。
+     */
+    public RefreshStats refresh(Path root, int maxDepth, Set<String> skipDirectories, int parallelism) throws IOException {
+        return refresh(root, maxDepth, skipDirectories, parallelism, null);
+    }
+
+    /**
+     * 增量刷新，每个目录经控制器检查取消与暂停，并计入其目录数。
+     * 被取消时已刷新的目录记录保留，但不删除未访问到的记录，根目录也不标记为新鲜。
+     *
+     * @param controller 扫描控制器，可为 null
+     */
+    public RefreshStats refresh(Path root, int maxDepth, Set<String> skipDirectories, int parallelism, ScanController controller) throws IOException {
+        String rootKey = key(root);
+        Path rootPath = Paths.get(rootKey);
+        BasicFileAttributes rootAttrs = FileTreeWalker.readAttributes(rootPath);
+        if (!rootAttrs.isDirectory()) {
+            throw new NotDirectoryException(rootKey);
+        }
+
+        int rootId = paths.add(rootPath);
+        Set<Integer> visited = ConcurrentHashMap.newKeySet();
+        AtomicInteger listed = new AtomicInteger();
+        AtomicInteger reused = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        if (maxDepth > 0 && !FileTreeWalker.shouldSkip(skipDirectories, rootPath)) {
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            try {
+                pool.invoke(new RefreshTask(rootPath, rootId, 0, new AncestorChain(rootPath,
+                        rootAttrs.fileKey() != null ? rootAttrs.fileKey().toString() : null, null),
+                        maxDepth, skipDirectories, controller, visited, listed, reused, failed));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        if (controller != null && controller.isCancelled()) {
+            return new RefreshStats(listed.get(), reused.get(), failed.get());
+        }
+
+        // 删除本次深度范围内已不存在的目录记录
+        dirs.keySet().removeIf(dir -> {
+            if (visited.contains(dir)) return false;
+            int depth = paths.depthBelow(dir, rootId);
+            return depth >= 0 && depth < maxDepth;
+        });
+
+        // 只记录本次确实检查过的深度：更深的旧记录未经检查，不能算作新鲜
+        roots.put(rootKey, new RootInfo(maxDepth, System.currentTimeMillis()));
+        return new RefreshStats(listed.get(), reused.get(), failed.get());
+    }
+
+    /**
+     * 按与目录遍历相同的语义从索引中逐个回调条目：深度内的文件，以及位于最大深度上的目录。
+     *
+     * @param action 返回false时停止
+     */
+    public void forEach(Path root, int maxDepth, Set<String> skipDirectories, Predicate<FileEntry> action) {
+        Path rootPath = Paths.get(key(root));
+        int rootId = paths.add(rootPath);
+        Deque<Integer> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        if (maxDepth == 0 || !dirs.containsKey(rootId) || FileTreeWalker.shouldSkip(skipDirectories, rootPath)) {
+            return;
+        }
+        stack.push(rootId);
+        depths.push(0);
+        while (!stack.isEmpty()) {
+            int dir = stack.pop();
+            int entryDepth = depths.pop() + 1;
+            DirRecord rec = dirs.get(dir);
+            if (rec == null) continue;
+            for (int i = 0; i < rec.nameIds.length; i++) {
+                if (rec.directory[i] && entryDepth < maxDepth) {
+                    if (FileTreeWalker.shouldSkip(skipDirectories, paths.nameOf(rec.nameIds[i]))) continue;
+                    stack.push(paths.childByNameId(dir, rec.nameIds[i]));
+                    depths.push(entryDepth);
+                } else if (!action.test(new FileEntry(paths, paths.childByNameId(dir, rec.nameIds[i]), rec.sizes[i], rec.mtimes[i]))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String key(Path root) {
+        return root.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * 单个目录的刷新任务：目录未变化则复用记录，否则重新列出；子目录拆分为新任务。
+     */
+    private final class RefreshTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final int dirId;
+        private final int depth;
+        private final AncestorChain ancestors;
+        private final int maxDepth;
+        private final Set<String> skipDirectories;
+        private final ScanController controller;
+        private final Set<Integer> visited;
+        private final AtomicInteger listed;
+        private final AtomicInteger reused;
+        private final AtomicInteger failed;
+
+        RefreshTask(Path dir, int dirId, int depth, AncestorChain ancestors, int maxDepth, Set<String> skipDirectories,
+                    ScanController controller, Set<Integer> visited, AtomicInteger listed, AtomicInteger reused, AtomicInteger failed) {
+            this.dir = dir;
+            this.dirId = dirId;
+            this.depth = depth;
+            this.ancestors = ancestors;
+            this.maxDepth = maxDepth;
+            this.skipDirectories = skipDirectories;
+            this.controller = controller;
+            this.visited = visited;
+            this.listed = listed;
+            this.reused = reused;
+            this.failed = failed;
+        }
+
+        @Override
+        protected void compute() {
+            // 取消后尚未开始的目录直接返回，暂停时在此等待
+            if (controller != null && !controller.onDirectoryVisited()) {
+                return;
+            }
+            DirRecord rec;
+            try {
+                long mtime = Files.getLastModifiedTime(dir).toMillis();
+                rec = dirs.get(dirId);
+                if (rec != null && rec.mtime == mtime) {
+                    reused.incrementAndGet();
+                } else {
+                    rec = list(mtime);
+                    dirs.put(dirId, rec);
+                    listed.incrementAndGet();
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                dirs.remove(dirId);
+                failed.incrementAndGet();
+                return;
+            }
+            visited.add(dirId);
+
+            int entryDepth = depth + 1;
+            if (entryDepth >= maxDepth) return;
+            List<RefreshTask> subtasks = new ArrayList<>();
+            for (int i = 0; i < rec.nameIds.length; i++) {
+                if (!rec.directory[i]) continue;
+                Path entry = dir.resolve(paths.nameOf(rec.nameIds[i]));
+                if (FileTreeWalker.shouldSkip(skipDirectories, entry)) continue;
+                Object key = rec.fileKeys[i];
+                if (ancestors.isLoop(entry, key)) continue;
+                subtasks.add(new RefreshTask(entry, paths.childByNameId(dirId, rec.nameIds[i]), entryDepth, new AncestorChain(entry, key, ancestors),
+                        maxDepth, skipDirectories, controller, visited, listed, reused, failed));
+            }
+            invokeAll(subtasks);
+        }
+
+        private DirRecord list(long mtime) throws IOException {
+            List<Path> entries = new ArrayList<>();
+            List<BasicFileAttributes> attrsList = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    try {
+                        attrsList.add(FileTreeWalker.readAttributes(entry));
+                        entries.add(entry);
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }
+            DirRecord rec = new DirRecord(mtime, entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                BasicFileAttributes attrs = attrsList.get(i);
+                rec.nameIds[i] = paths.nameId(entries.get(i).getFileName().toString());
+                rec.sizes[i] = attrs.size();
+                rec.mtimes[i] = attrs.lastModifiedTime().toMillis();
+                rec.fileKeys[i] = attrs.fileKey() != null ? attrs.fileKey().toString() : null;
+                rec.directory[i] = attrs.isDirectory();
+            }
+            return rec;
+        }
+    }
+}
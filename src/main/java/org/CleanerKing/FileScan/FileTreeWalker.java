@@ -0,0 +1,238 @@
+package org.CleanerKing.FileScan;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 目录遍历器，支持串行与并行两种方式：
+ *
+ * - 串行：基于 Files.walkFileTree，单线程遍历。
+ * - 并行：基于 ForkJoin，每个子目录拆分为一个任务，由工作窃取线程池在所有核心上执行。
+ *
+ * 两种方式遵循相同的语义：跟随符号链接、跳过指定名称的目录、达到最大深度的条目
+ * 直接交给 visitFile（与 walkFileTree 一致），因此得到相同的文件集合。
+ */
+public class FileTreeWalker {
+
+    /**
+     * 遍历方式。
+     */
+    public enum Mode {
+        SERIAL, PARALLEL
+    }
+
+    /**
+     * 遍历回调。并行模式下会被多个线程同时调用，实现必须线程安全。
+     */
+    public interface Visitor {
+        /**
+         * 访问一个文件（或位于最大深度上的目录）。
+         *
+         * @return 返回false时终止整个遍历
+         */
+        boolean visitFile(Path file, BasicFileAttributes attrs);
+
+        /**
+         * 文件或目录无法访问。
+         */
+        default void visitFileFailed(Path file, IOException exc) {
+        }
+
+        /**
+         * 进入目录（目录已成功打开，尚未访问其内容）。
+         */
+        default void preVisitDirectory(Path dir) {
+        }
+
+        /**
+         * 目录及其所有子目录都已访问完毕。
+         */
+        default void postVisitDirectory(Path dir) {
+        }
+    }
+
+    private final Set<String> skipDirectories;
+    private final int maxDepth;
+    private final Mode mode;
+    private final int parallelism;
+
+    /**
+     * @param skipDirectories 需要跳过的目录名（小写）
+     * @param maxDepth        最大遍历深度
+     * @param mode            遍历方式
+     * @param parallelism     并行模式下的线程数
+     */
+    public FileTreeWalker(Set<String> skipDirectories, int maxDepth, Mode mode, int parallelism) {
+        this.skipDirectories = skipDirectories;
+        this.maxDepth = maxDepth;
+        this.mode = mode;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 从根目录开始遍历。
+     */
+    public void walk(Path root, Visitor visitor) throws IOException {
+        if (mode == Mode.SERIAL) {
+            walkSerial(root, visitor);
+        } else {
+            walkParallel(root, visitor);
+        }
+    }
+
+    static boolean shouldSkip(Set<String> skipDirectories, Path dir) {
+        return shouldSkip(skipDirectories, dir.getFileName() != null ? dir.getFileName().toString() : "");
+    }
+
+    static boolean shouldSkip(Set<String> skipDirectories, String dirName) {
+        return skipDirectories.contains(dirName.toLowerCase());
+    }
+
+    private boolean shouldSkip(Path dir) {
+        return shouldSkip(skipDirectories, dir);
+    }
+
+    private void walkSerial(Path root, Visitor visitor) throws IOException {
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                if (shouldSkip(d)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                visitor.preVisitDirectory(d);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException exc) {
+                // 列出目录中途失败，与并行遍历一样先报告该目录
+                if (exc != null) {
+                    visitor.visitFileFailed(d, exc);
+                }
+                visitor.postVisitDirectory(d);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path fp, BasicFileAttributes attrs) {
+                return visitor.visitFile(fp, attrs) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path f, IOException exc) {
+                visitor.visitFileFailed(f, exc);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void walkParallel(Path root, Visitor visitor) throws IOException {
+        BasicFileAttributes rootAttrs = readAttributes(root);
+        if (!rootAttrs.isDirectory() || maxDepth == 0) {
+            visitor.visitFile(root, rootAttrs);
+            return;
+        }
+        if (shouldSkip(root)) {
+            return;
+        }
+
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryTask(root, 0, new AncestorChain(root, rootAttrs.fileKey(), null), visitor, stopped));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 读取属性，跟随链接失败（如失效的链接）时退回到链接本身的属性，与 walkFileTree 保持一致。
+     */
+    static BasicFileAttributes readAttributes(Path p) throws IOException {
+        try {
+            return Files.readAttributes(p, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    /**
+     * 单个目录的遍历任务：列出目录内容，文件直接回调，子目录拆分为新任务。
+     */
+    private final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final int depth;
+        private final AncestorChain ancestors;
+        private final Visitor visitor;
+        private final AtomicBoolean stopped;
+
+        DirectoryTask(Path dir, int depth, AncestorChain ancestors, Visitor visitor, AtomicBoolean stopped) {
+            this.dir = dir;
+            this.depth = depth;
+            this.ancestors = ancestors;
+            this.visitor = visitor;
+            this.stopped = stopped;
+        }
+
+        @Override
+        protected void compute() {
+            if (stopped.get()) return;
+
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            int entryDepth = depth + 1;
+            DirectoryStream<Path> stream;
+            try {
+                stream = Files.newDirectoryStream(dir);
+            } catch (IOException e) {
+                visitor.visitFileFailed(dir, e);
+                return;
+            }
+            visitor.preVisitDirectory(dir);
+            try {
+                for (Path entry : stream) {
+                    if (stopped.get()) break;
+
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = readAttributes(entry);
+                    } catch (IOException e) {
+                        visitor.visitFileFailed(entry, e);
+                        continue;
+                    }
+
+                    if (attrs.isDirectory() && entryDepth < maxDepth) {
+                        if (shouldSkip(entry)) continue;
+                        Object key = attrs.fileKey();
+                        if (ancestors.isLoop(entry, key)) {
+                            visitor.visitFileFailed(entry, new FileSystemLoopException(entry.toString()));
+                            continue;
+                        }
+                        subtasks.add(new DirectoryTask(entry, entryDepth, new AncestorChain(entry, key, ancestors), visitor, stopped));
+                    } else if (!visitor.visitFile(entry, attrs)) {
+                        stopped.set(true);
+                        break;
+                    }
+                }
+            } catch (DirectoryIteratorException e) {
+                visitor.visitFileFailed(dir, e.getCause());
+            } finally {
+                try {
+                    stream.close();
+                } catch (IOException ignore) {
+                }
+            }
+
+            if (!subtasks.isEmpty() && !stopped.get()) {
+                invokeAll(subtasks);
+            }
+            visitor.postVisitDirectory(dir);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.CleanerKing.FileScan;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 关键词匹配器，每次搜索根据用户输入的关键词编译一次。
+ *
+ * 文件名与文件内容分别使用 Aho-Corasick 自动机匹配，均为线性时间并报告命中了哪些关键词。
+ * 过滤语义与原来一致（AND）：每个关键词必须出现在文件名或文件内容中；
+ * 文件名已包含全部关键词时不读取内容。
+ */
+public class KeywordMatcher {
+
+    private final List<String> keywords;
+    private final AhoCorasick nameAutomaton;
+    private final ContentScanner contentScanner;
+
+    /**
+     * @param keywords        关键词（不区分大小写）
+     * @param contentMaxBytes 每个文件内容扫描的字节上限
+     * @param scanBinaries    是否强制扫描二进制文件的内容
+     */
+    public KeywordMatcher(List<String> keywords, long contentMaxBytes, boolean scanBinaries) {
+        this.keywords = new ArrayList<>(keywords);
+        List<int[]> patterns = new ArrayList<>();
+        int[] patternKeyword = new int[keywords.size()];
+        for (int k = 0; k < keywords.size(); k++) {
+            String lower = keywords.get(k).toLowerCase();
+            int[] p = new int[lower.length()];
+            for (int i = 0; i < p.length; i++) {
+                p[i] = lower.charAt(i);
+            }
+            patterns.add(p);
+            patternKeyword[k] = k;
+        }
+        this.nameAutomaton = new AhoCorasick(Character.MAX_VALUE + 1, patterns, patternKeyword);
+        this.contentScanner = new ContentScanner(keywords, contentMaxBytes, scanBinaries);
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public ContentScanner getContentScanner() {
+        return contentScanner;
+    }
+
+    /**
+     * 匹配文件名，返回每个关键词是否出现。
+     */
+    public boolean[] matchName(CharSequence fileName) {
+        boolean[] found = new boolean[keywords.size()];
+        nameAutomaton.matchLowerCase(fileName, found, found.length);
+        return found;
+    }
+
+    /**
+     * 检查每个关键词是否都出现在文件名或文件内容中。
+     */
+    public boolean matchesAll(CharSequence fileName, Path file) {
+        boolean[] found = new boolean[keywords.size()];
+        if (nameAutomaton.matchLowerCase(fileName, found, found.length) == 0) {
+            return true;
+        }
+        // 文件名未包含全部关键词时，一次读取内容查找剩余的关键词
+        return contentScanner.containsAll(file, found);
+    }
+}
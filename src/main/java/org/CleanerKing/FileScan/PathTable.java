@@ -0,0 +1,310 @@
+package org.CleanerKing.FileScan;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * 路径表：每个路径保存为“父路径编号 + 名称编号”，相同的目录前缀只保存一次，
+ * 相同的名称（如 cache、index.js）也只保存一份。完整路径只在显示或删除时才拼接。
+ *
+ * 所有数据都在基本类型数组中：名称以 UTF-8 字节依次存放在字节池里；
+ * 名称查重与 (父编号, 名称编号) 查找各用开放寻址哈希表，槽中只存编号，
+ * 比较时回到数组中取键，不为任何条目创建对象。
+ *
+ * 路径与名称各按哈希分为 SEGMENTS 段，每段有自己的数组和锁，并行遍历的线程很少争用同一把锁；
+ * 编号的低位是段号，编号不连续，只作为键使用。
+ *
+ * 根（如 C:\ 或 /）作为父编号为 -1 的名称保存。线程安全。
+ */
+public final class PathTable {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENTS - 1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final String SEPARATOR = FileSystems.getDefault().getSeparator();
+    private static final int EMPTY = -1;
+
+    private final PathSegment[] pathSegments = new PathSegment[SEGMENTS];
+    private final NameSegment[] nameSegments = new NameSegment[SEGMENTS];
+
+    // 结果通常按目录成批到达，缓存上一次的父目录
+    private volatile DirCache lastDir;
+
+    public PathTable() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            pathSegments[i] = new PathSegment();
+            nameSegments[i] = new NameSegment();
+        }
+    }
+
+    private static int[] newSlots(int size) {
+        int[] slots = new int[size];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    /**
+     * 添加绝对路径（已存在时返回原编号）。
+     */
+    public int add(Path path) {
+        Path dir = path.getParent();
+        Path name = path.getFileName();
+        if (name == null) {
+            // 根本身
+            return child(-1, path.toString());
+        }
+        int dirId;
+        DirCache cache = lastDir;
+        if (dir == null) {
+            dirId = -1;
+        } else if (cache != null && dir.equals(cache.dir)) {
+            dirId = cache.id;
+        } else {
+            dirId = addDirectory(dir);
+            lastDir = new DirCache(dir, dirId);
+        }
+        return child(dirId, name.toString());
+    }
+
+    private int addDirectory(Path dir) {
+        Path root = dir.getRoot();
+        int id = root != null ? child(-1, root.toString()) : -1;
+        for (int i = 0; i < dir.getNameCount(); i++) {
+            id = child(id, dir.getName(i).toString());
+        }
+        return id;
+    }
+
+    /**
+     * 父路径下名为 name 的子路径编号，不存在时添加。
+     *
+     * @param parent 父路径编号，-1 表示根
+     */
+    public int child(int parent, String name) {
+        return childByNameId(parent, nameId(name));
+    }
+
+    /**
+     * 同 child，名称以名称编号给出。
+     */
+    public int childByNameId(int parent, int nameId) {
+        int hash = mix(parent * 31 + nameId);
+        int segment = hash >>> (32 - SEGMENT_BITS);
+        return (pathSegments[segment].child(parent, nameId, hash) << SEGMENT_BITS) | segment;
+    }
+
+    /**
+     * 名称编号，名称不存在时加入名称池。
+     */
+    public int nameId(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = Arrays.hashCode(bytes);
+        int segment = mix(hash) >>> (32 - SEGMENT_BITS);
+        return (nameSegments[segment].nameId(bytes, hash) << SEGMENT_BITS) | segment;
+    }
+
+    /**
+     * 名称编号对应的名称。
+     */
+    public String nameOf(int nameId) {
+        return nameSegments[nameId & SEGMENT_MASK].nameOf(nameId >>> SEGMENT_BITS);
+    }
+
+    private static void insert(int[] slots, int hash, int id) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 路径数。
+     */
+    public int size() {
+        int n = 0;
+        for (PathSegment s : pathSegments) {
+            n += s.size();
+        }
+        return n;
+    }
+
+    /**
+     * 父路径编号，根返回 -1。
+     */
+    public int getParent(int id) {
+        return pathSegments[id & SEGMENT_MASK].parent(id >>> SEGMENT_BITS);
+    }
+
+    /**
+     * 最后一级名称（根返回根本身，如 C:\）。
+     */
+    public String getName(int id) {
+        return nameOf(pathSegments[id & SEGMENT_MASK].nameId(id >>> SEGMENT_BITS));
+    }
+
+    /**
+     * id 位于 ancestor 之下的层数（相同时为 0），不在其下时返回 -1。
+     */
+    public int depthBelow(int id, int ancestor) {
+        int depth = 0;
+        for (int n = id; n >= 0; n = getParent(n)) {
+            if (n == ancestor) return depth;
+            depth++;
+        }
+        return -1;
+    }
+
+    /**
+     * 拼接完整路径字符串。
+     */
+    public String toString(int id) {
+        int depth = 0;
+        for (int n = id; n >= 0; n = getParent(n)) depth++;
+        String[] segments = new String[depth];
+        for (int n = id, i = depth - 1; n >= 0; n = getParent(n), i--) {
+            segments[i] = getName(n);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String s : segments) {
+            if (sb.length() > 0 && !endsWithSeparator(sb)) {
+                sb.append(SEPARATOR);
+            }
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    private static boolean endsWithSeparator(StringBuilder sb) {
+        char c = sb.charAt(sb.length() - 1);
+        return c == '/' || c == '\\';
+    }
+
+    public Path toPath(int id) {
+        return Paths.get(toString(id));
+    }
+
+    private static final class DirCache {
+        final Path dir;
+        final int id;
+
+        DirCache(Path dir, int id) {
+            this.dir = dir;
+            this.id = id;
+        }
+    }
+
+    /**
+     * 一段路径：按段内编号索引的父编号与名称编号，以及 (父编号, 名称编号) 的查找表。
+     */
+    private static final class PathSegment {
+        private int count;
+        private int[] parents = new int[INITIAL_CAPACITY];
+        private int[] nameIds = new int[INITIAL_CAPACITY];
+        private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+
+        synchronized int child(int parent, int nameId, int hash) {
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            for (int id; (id = slots[slot]) != EMPTY; slot = (slot + 1) & mask) {
+                if (parents[id] == parent && nameIds[id] == nameId) {
+                    return id;
+                }
+            }
+
+            if (count == parents.length) {
+                parents = Arrays.copyOf(parents, count * 2);
+                nameIds = Arrays.copyOf(nameIds, count * 2);
+            }
+            int id = count++;
+            parents[id] = parent;
+            nameIds[id] = nameId;
+            slots[slot] = id;
+            if (count * 2 > slots.length) {
+                slots = newSlots(slots.length * 2);
+                for (int i = 0; i < count; i++) {
+                    insert(slots, mix(parents[i] * 31 + nameIds[i]), i);
+                }
+            }
+            return id;
+        }
+
+        synchronized int parent(int id) {
+            return parents[id];
+        }
+
+        synchronized int nameId(int id) {
+            return nameIds[id];
+        }
+
+        synchronized int size() {
+            return count;
+        }
+    }
+
+    /**
+     * 一段名称：名称 i 占用字节池 [starts[i], starts[i + 1])。
+     */
+    private static final class NameSegment {
+        private int count;
+        private int[] starts = new int[INITIAL_CAPACITY + 1];
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private byte[] pool = new byte[INITIAL_CAPACITY * 16];
+        private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+
+        synchronized int nameId(byte[] bytes, int hash) {
+            int mask = slots.length - 1;
+            int slot = mix(hash) & mask;
+            for (int id; (id = slots[slot]) != EMPTY; slot = (slot + 1) & mask) {
+                if (hashes[id] == hash && equals(id, bytes)) {
+                    return id;
+                }
+            }
+
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                starts = Arrays.copyOf(starts, count * 2 + 1);
+            }
+            int start = starts[count];
+            if (start + bytes.length > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, start + bytes.length));
+            }
+            System.arraycopy(bytes, 0, pool, start, bytes.length);
+            int id = count++;
+            starts[count] = start + bytes.length;
+            hashes[id] = hash;
+            slots[slot] = id;
+            if (count * 2 > slots.length) {
+                slots = newSlots(slots.length * 2);
+                for (int i = 0; i < count; i++) {
+                    insert(slots, mix(hashes[i]), i);
+                }
+            }
+            return id;
+        }
+
+        private boolean equals(int id, byte[] bytes) {
+            int start = starts[id];
+            if (starts[id + 1] - start != bytes.length) return false;
+            for (int i = 0; i < bytes.length; i++) {
+                if (pool[start + i] != bytes[i]) return false;
+            }
+            return true;
+        }
+
+        synchronized String nameOf(int id) {
+            int start = starts[id];
+            return new String(pool, start, starts[id + 1] - start, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.CleanerKing.FileScan;
+
+import org.CleanerKing.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 搜索结果列表，前 heapLimit 个结果保存在堆上，其余结果溢出到临时文件中，
+ * 因此匹配数量不受 -Xmx 限制。
+ *
+ * 溢出部分由两个文件组成：索引文件每条 16 字节（大小 + 路径在数据文件中的位置），
+ * 数据文件依次保存路径的 UTF-8 字节。按下标读取时只读一条索引和一条路径；
+ * 按大小排序时先把堆上的结果也移入溢出文件，再对索引做分段排序与多路归并，
+ * 每次只在堆上放一段。
+ *
+ * 写入只由单个线程执行（扫描流水线的收集线程），读取在写入完成之后进行。
+ * 使用完毕后必须 close() 删除临时文件。
+ */
+public class ResultStore extends AbstractList<Utils.FileDetail> implements Closeable {
+
+    private static final int RECORD_BYTES = 16;
+    // 排序时每段读入堆中的记录数
+    private static final int SORT_RUN_RECORDS = 1 << 20;
+    // 排序与归并时每次读写的记录数
+    private static final int IO_RECORDS = 4096;
+
+    private final int heapLimit;
+    private final int sortRunRecords;
+    private final List<Utils.FileDetail> heap = new ArrayList<>();
+    private TempAppendFile index;
+    private TempAppendFile data;
+    private int spilled;
+
+    /**
+     * @param heapLimit 保存在堆上的最大结果数
+     */
+    public ResultStore(int heapLimit) {
+        this(heapLimit, SORT_RUN_RECORDS);
+    }
+
+    /**
+     * @param sortRunRecords 排序时每段的记录数
+     */
+    ResultStore(int heapLimit, int sortRunRecords) {
+        this.heapLimit = Math.max(0, heapLimit);
+        this.sortRunRecords = Math.max(1, sortRunRecords);
+    }
+
+    @Override
+    public boolean add(Utils.FileDetail fd) {
+        if (heap.size() < heapLimit) {
+            heap.add(fd);
+        } else {
+            try {
+                spill(fd);
+            } catch (IOException e) {
+                // 临时文件不可用时退回到堆上保存
+                heap.add(fd);
+            }
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Utils.FileDetail get(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+        }
+        if (i < heap.size()) {
+            return heap.get(i);
+        }
+        try {
+            long rec = (long) (i - heap.size()) * RECORD_BYTES;
+            long size = index.getLong(rec);
+            long offset = index.getLong(rec + 8);
+            byte[] path = new byte[data.getInt(offset)];
+            data.read(offset + 4, path);
+            return new Utils.FileDetail(new String(path, StandardCharsets.UTF_8), size);
+        } catch (IOException e) {
+            throw new IllegalStateException("无法读取临时结果文件: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return heap.size() + spilled;
+    }
+
+    /**
+     * 溢出到临时文件中的结果数。
+     */
+    public int getSpilledCount() {
+        return spilled;
+    }
+
+    private void spill(Utils.FileDetail fd) throws IOException {
+        if (index == null) {
+            index = new TempAppendFile("cleanerking-results-index");
+            data = new TempAppendFile("cleanerking-results-data");
+        }
+        byte[] path = fd.getPath().getBytes(StandardCharsets.UTF_8);
+        long offset = data.size();
+        data.appendInt(path.length);
+        data.append(path);
+        index.appendLong(fd.getSize());
+        index.appendLong(offset);
+        spilled++;
+    }
+
+    /**
+     * 按文件大小从大到小排序。
+     */
+    public void sortBySizeDescending() throws IOException {
+        modCount++;
+        if (spilled == 0) {
+            heap.sort(Comparator.comparingLong(Utils.FileDetail::getSize).reversed());
+            return;
+        }
+        for (Utils.FileDetail fd : heap) {
+            spill(fd);
+        }
+        heap.clear();
+
+        // 分段排序：每段读入堆中排好后原地写回
+        int runs = (spilled + sortRunRecords - 1) / sortRunRecords;
+        long[] sizes = new long[Math.min(spilled, sortRunRecords)];
+        long[] offsets = new long[sizes.length];
+        ByteBuffer buf = ByteBuffer.allocate(IO_RECORDS * RECORD_BYTES);
+        for (int r = 0; r < runs; r++) {
+            int from = r * sortRunRecords;
+            int n = Math.min(sortRunRecords, spilled - from);
+            for (int i = 0; i < n; i += IO_RECORDS) {
+                int m = Math.min(IO_RECORDS, n - i);
+                buf.clear().limit(m * RECORD_BYTES);
+                index.read((long) (from + i) * RECORD_BYTES, buf);
+                buf.flip();
+                for (int k = 0; k < m; k++) {
+                    sizes[i + k] = buf.getLong();
+                    offsets[i + k] = buf.getLong();
+                }
+            }
+            sortDescending(sizes, offsets, 0, n - 1);
+            for (int i = 0; i < n; i += IO_RECORDS) {
+                int m = Math.min(IO_RECORDS, n - i);
+                buf.clear();
+                for (int k = 0; k < m; k++) {
+                    buf.putLong(sizes[i + k]);
+                    buf.putLong(offsets[i + k]);
+                }
+                buf.flip();
+                index.write((long) (from + i) * RECORD_BYTES, buf);
+            }
+        }
+        if (runs > 1) {
+            merge(runs);
+        }
+    }
+
+    /**
+     * 多路归并已排好序的各段，写入新的索引文件。每段经由一个小缓冲区顺序读取。
+     */
+    private void merge(int runs) throws IOException {
+        RunReader[] readers = new RunReader[runs];
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runs, (a, b) -> Long.compare(b.size, a.size));
+        for (int r = 0; r < runs; r++) {
+            long from = (long) r * sortRunRecords;
+            readers[r] = new RunReader(from, Math.min(spilled, from + sortRunRecords));
+            if (readers[r].next()) {
+                queue.add(readers[r]);
+            }
+        }
+
+        TempAppendFile merged = new TempAppendFile("cleanerking-results-index");
+        try {
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                merged.appendLong(reader.size);
+                merged.appendLong(reader.offset);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+        } catch (IOException e) {
+            merged.close();
+            throw e;
+        }
+        index.close();
+        index = merged;
+    }
+
+    /**
+     * 顺序读取索引文件中一段记录。
+     */
+    private class RunReader {
+        private final ByteBuffer buf = ByteBuffer.allocate(Math.min(IO_RECORDS, sortRunRecords) * RECORD_BYTES);
+        private long next;
+        private final long end;
+        long size;
+        long offset;
+
+        RunReader(long from, long end) {
+            this.next = from;
+            this.end = end;
+            buf.limit(0);
+        }
+
+        /**
+         * 读到下一条记录，本段已读完时返回 false。
+         */
+        boolean next() throws IOException {
+            if (!buf.hasRemaining()) {
+                if (next >= end) {
+                    return false;
+                }
+                int m = (int) Math.min(buf.capacity() / RECORD_BYTES, end - next);
+                buf.clear().limit(m * RECORD_BYTES);
+                index.read(next * RECORD_BYTES, buf);
+                buf.flip();
+                next += m;
+            }
+            size = buf.getLong();
+            offset = buf.getLong();
+            return true;
+        }
+    }
+
+    /**
+     * 按 sizes 从大到小对两个并行数组做快速排序。
+     */
+    private static void sortDescending(long[] sizes, long[] offsets, int lo, int hi) {
+        while (hi - lo > 16) {
+            long pivot = sizes[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (sizes[i] > pivot) i++;
+                while (sizes[j] < pivot) j--;
+                if (i <= j) {
+                    swap(sizes, offsets, i++, j--);
+                }
+            }
+            // 递归处理较短的一侧，较长的一侧循环处理，栈深度为对数级
+            if (j - lo < hi - i) {
+                sortDescending(sizes, offsets, lo, j);
+                lo = i;
+            } else {
+                sortDescending(sizes, offsets, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && sizes[j] > sizes[j - 1]; j--) {
+                swap(sizes, offsets, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(long[] sizes, long[] offsets, int a, int b) {
+        long s = sizes[a];
+        sizes[a] = sizes[b];
+        sizes[b] = s;
+        long o = offsets[a];
+        offsets[a] = offsets[b];
+        offsets[b] = o;
+    }
+
+    /**
+     * 删除临时文件。
+     */
+    @Override
+    public void close() {
+        heap.clear();
+        spilled = 0;
+        if (index != null) {
+            index.close();
+            data.close();
+            index = null;
+            data = null;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package org.CleanerKing.FileScan;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 扫描控制器：取消、暂停/继续、文件数与时间预算，以及定时进度回调。
+ *
+ * 遍历线程只调用 onFileVisited()，该方法从不读取标准输入：取消时返回 false，
+ * 暂停或预算用尽时在控制器上等待，直到界面线程调用 resume()、放宽预算或 cancel()。
+ * 进度由单独的线程按固定间隔回调，界面在该线程中渲染，遍历线程不直接输出。
+ */
+public class ScanController {
+
+    /**
+     * 扫描当前的状态。
+     */
+    public enum State {
+        RUNNING, PAUSED, FILE_BUDGET_REACHED, TIME_BUDGET_REACHED, CANCELLED, FINISHED
+    }
+
+    /**
+     * 进度回调，在进度线程中调用。
+     */
+    public interface ProgressListener {
+        void onProgress(long scanned, long matched, long elapsedMillis, State state);
+    }
+
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong directories = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+
+    private volatile State state = State.RUNNING;
+    private volatile long fileBudget;
+    private volatile long deadlineNanos;
+    private Thread progressThread;
+
+    /**
+     * @param fileBudget       最多扫描的文件数，0 表示不限制
+     * @param timeBudgetMillis 最长扫描时间，0 表示不限制
+     */
+    public ScanController(long fileBudget, long timeBudgetMillis) {
+        this.fileBudget = fileBudget;
+        this.deadlineNanos = timeBudgetMillis > 0 ? startNanos + timeBudgetMillis * 1_000_000L : 0;
+    }
+
+    /**
+     * 遍历线程每访问一个文件调用一次。
+     *
+     * @return 返回 false 时应停止遍历
+     */
+    public boolean onFileVisited() {
+        long count = scanned.incrementAndGet();
+        if (state == State.RUNNING) {
+            long budget = fileBudget;
+            if (budget > 0 && count > budget) {
+                transition(State.FILE_BUDGET_REACHED);
+            } else if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+                transition(State.TIME_BUDGET_REACHED);
+            }
+        }
+        return awaitRunning();
+    }
+
+    /**
+     * 刷新索引时每检查一个目录调用一次。目录不计入文件预算，但同样响应取消与暂停。
+     *
+     * @return 返回 false 时应停止刷新
+     */
+    public boolean onDirectoryVisited() {
+        directories.incrementAndGet();
+        return awaitRunning();
+    }
+
+    /**
+     * 检查点：暂停或等待预算决定时阻塞，返回是否应继续。
+     */
+    public boolean awaitRunning() {
+        State s = state;
+        if (s == State.RUNNING) return true;
+        if (s == State.CANCELLED) return false;
+        synchronized (this) {
+            while (state != State.RUNNING && state != State.CANCELLED) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return state == State.RUNNING;
+        }
+    }
+
+    private synchronized void transition(State next) {
+        // 只从运行状态进入预算用尽，避免覆盖取消或暂停
+        if (state == State.RUNNING) {
+            state = next;
+            notifyAll();
+        }
+    }
+
+    /**
+     * 记录一个匹配结果。
+     */
+    public void onMatched() {
+        matched.incrementAndGet();
+    }
+
+    /**
+     * 取消扫描，等待中的遍历线程立即返回。
+     */
+    public synchronized void cancel() {
+        if (state != State.FINISHED) {
+            state = State.CANCELLED;
+            notifyAll();
+        }
+    }
+
+    public synchronized void pause() {
+        if (state == State.RUNNING) {
+            state = State.PAUSED;
+        }
+    }
+
+    public synchronized void resume() {
+        if (state == State.PAUSED) {
+            state = State.RUNNING;
+            notifyAll();
+        }
+    }
+
+    public synchronized void togglePause() {
+        if (state == State.PAUSED) {
+            resume();
+        } else {
+            pause();
+        }
+    }
+
+    /**
+     * 预算用尽后放宽预算并继续：文件预算与时间预算各增加一倍。
+     */
+    public synchronized void extendBudget() {
+        if (state == State.FILE_BUDGET_REACHED) {
+            fileBudget *= 2;
+        } else if (state == State.TIME_BUDGET_REACHED) {
+            long now = System.nanoTime();
+            deadlineNanos = now + (now - startNanos);
+        } else {
+            return;
+        }
+        state = State.RUNNING;
+        notifyAll();
+    }
+
+    /**
+     * 标记扫描结束并唤醒等待的界面线程。
+     */
+    public synchronized void finish() {
+        if (state != State.CANCELLED) {
+            state = State.FINISHED;
+        }
+        notifyAll();
+    }
+
+    /**
+     * 界面线程等待，直到扫描结束、被取消或预算用尽需要用户决定。
+     *
+     * @return 等待结束时的状态
+     */
+    public synchronized State awaitAttention() throws InterruptedException {
+        while (state == State.RUNNING || state == State.PAUSED) {
+            wait();
+        }
+        return state;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isCancelled() {
+        return state == State.CANCELLED;
+    }
+
+    public long getScanned() {
+        return scanned.get();
+    }
+
+    public long getMatched() {
+        return matched.get();
+    }
+
+    /**
+     * 刷新索引时已检查的目录数。
+     */
+    public long getDirectories() {
+        return directories.get();
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 启动进度线程，按固定间隔回调，直到 stopProgress()。
+     */
+    public synchronized void startProgress(ProgressListener listener, long intervalMillis) {
+        if (progressThread != null) return;
+        progressThread = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    listener.onProgress(scanned.get(), matched.get(), getElapsedMillis(), state);
+                    Thread.sleep(intervalMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "scan-progress");
+        progressThread.setDaemon(true);
+        progressThread.start();
+    }
+
+    /**
+     * 停止进度线程并等待其退出，之后可以安全地在界面线程中输出。
+     */
+    public void stopProgress() {
+        Thread t;
+        synchronized (this) {
+            t = progressThread;
+            progressThread = null;
+        }
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.CleanerKing.FileScan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 有界的 遍历 → 过滤 → 收集 流水线。
+ *
+ * 遍历线程通过 submit 提交条目，条目按批次进入有界队列；队列满时 submit 阻塞，
+ * 使遍历速度自动降到过滤线程的处理速度。过滤通过的条目再按批次交给唯一的收集线程，
+ * 因此收集回调无需考虑线程安全。内存中最多只存在
+ * (过滤队列容量 + 收集队列容量 + 过滤线程数 + 提交线程数 + 2) 个批次：
+ * 两个队列中的批次、每个过滤线程与等待入队的提交线程手中各一批、正在填充的一批和收集线程手中的一批，
+ * 与目录树大小无关。
+ *
+ * @param <T> 流水线中流动的条目类型
+ */
+public class ScanPipeline<T> {
+
+    private static final List<?> POISON = Collections.emptyList();
+
+    private final int batchSize;
+    private final Predicate<T> filter;
+    private final Consumer<T> collector;
+    private final BlockingQueue<List<T>> filterQueue;
+    private final BlockingQueue<List<T>> collectQueue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Thread collectorThread;
+
+    private final Object batchLock = new Object();
+    private List<T> currentBatch;
+    private volatile boolean aborted;
+
+    /**
+     * @param workers       过滤线程数
+     * @param batchSize     每批条目数
+     * @param queueCapacity 每个阶段队列最多容纳的批次数
+     * @param filter        过滤阶段，在过滤线程中并发执行
+     * @param collector     收集阶段，在单独的收集线程中顺序执行
+     */
+    public ScanPipeline(int workers, int batchSize, int queueCapacity, Predicate<T> filter, Consumer<T> collector) {
+        this.batchSize = Math.max(1, batchSize);
+        this.filter = filter;
+        this.collector = collector;
+        this.filterQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.collectQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.currentBatch = new ArrayList<>(this.batchSize);
+
+        for (int i = 0; i < Math.max(1, workers); i++) {
+            Thread t = new Thread(this::filterLoop, "scan-filter-" + i);
+            t.setDaemon(true);
+            this.workers.add(t);
+            t.start();
+        }
+        collectorThread = new Thread(this::collectLoop, "scan-collector");
+        collectorThread.setDaemon(true);
+        collectorThread.start();
+    }
+
+    /**
+     * 提交一个条目，批次满时交给过滤线程；过滤队列已满则阻塞等待。
+     */
+    public void submit(T item) throws InterruptedException {
+        List<T> full = null;
+        synchronized (batchLock) {
+            currentBatch.add(item);
+            if (currentBatch.size() >= batchSize) {
+                full = currentBatch;
+                currentBatch = new ArrayList<>(batchSize);
+            }
+        }
+        if (full != null) {
+            offer(filterQueue, full);
+        }
+    }
+
+    /**
+     * 放入队列，队列满时等待；中止后下游线程不再取走批次，因此不能无限期阻塞。
+     *
+     * @return 流水线已中止时返回 false
+     */
+    private boolean offer(BlockingQueue<List<T>> queue, List<T> batch) throws InterruptedException {
+        while (!queue.offer(batch, 50, TimeUnit.MILLISECONDS)) {
+            if (aborted) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 提交剩余批次并等待所有阶段处理完毕；期间被 abort() 中止时立即返回。
+     */
+    @SuppressWarnings("unchecked")
+    public void finish() throws InterruptedException {
+        List<T> rest;
+        synchronized (batchLock) {
+            rest = currentBatch;
+            currentBatch = new ArrayList<>(0);
+        }
+        if (!rest.isEmpty() && !offer(filterQueue, rest)) {
+            return;
+        }
+        for (int i = 0; i < workers.size(); i++) {
+            if (!offer(filterQueue, (List<T>) POISON)) return;
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        if (!offer(collectQueue, (List<T>) POISON)) {
+            return;
+        }
+        collectorThread.join();
+    }
+
+    /**
+     * 立即中止流水线，丢弃尚未处理的条目。收集线程在当前条目处理完后退出。
+     */
+    public void abort() {
+        aborted = true;
+        filterQueue.clear();
+        for (Thread t : workers) {
+            t.interrupt();
+        }
+        collectorThread.interrupt();
+    }
+
+    /**
+     * 中止后等待收集线程退出，之后收集的结果不会再变化。
+     *
+     * @return 收集线程是否已退出
+     */
+    public boolean awaitCollector(long timeoutMillis) throws InterruptedException {
+        collectorThread.join(timeoutMillis);
+        return !collectorThread.isAlive();
+    }
+
+    private void filterLoop() {
+        try {
+            while (true) {
+                List<T> batch = filterQueue.take();
+                if (batch == POISON) {
+                    return;
+                }
+                List<T> passed = new ArrayList<>();
+                for (T item : batch) {
+                    try {
+                        if (filter.test(item)) {
+                            passed.add(item);
+                        }
+                    } catch (Exception e) {
+                        // 单个条目出错不影响整批
+                    }
+                }
+                if (!passed.isEmpty()) {
+                    collectQueue.put(passed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void collectLoop() {
+        try {
+            while (true) {
+                List<T> batch = collectQueue.take();
+                if (batch == POISON) {
+                    return;
+                }
+                for (T item : batch) {
+                    if (aborted) {
+                        return;
+                    }
+                    collector.accept(item);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
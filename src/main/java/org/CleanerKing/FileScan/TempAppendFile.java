@@ -0,0 +1,143 @@
+package org.CleanerKing.FileScan;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 只追加的临时文件。追加的数据先写入小的缓冲区，满后写入文件；读取与覆盖按位置读写文件通道，
+ * 数据不占用 Java 堆。
+ *
+ * 不使用内存映射：映射在回收前一直存在，Windows 上会使关闭时的删除失败而留下临时文件。
+ * 关闭时删除临时文件。非线程安全。
+ */
+final class TempAppendFile implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    // 尚未写入文件的追加数据
+    private final ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer scratch = ByteBuffer.allocate(8);
+    // 已写入文件的字节数
+    private long written;
+
+    TempAppendFile(String prefix) throws IOException {
+        this.file = Files.createTempFile(prefix, ".tmp");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 已追加的字节数。
+     */
+    long size() {
+        return written + pending.position();
+    }
+
+    void appendLong(long value) throws IOException {
+        if (pending.remaining() < 8) {
+            flush();
+        }
+        pending.putLong(value);
+    }
+
+    void appendInt(int value) throws IOException {
+        if (pending.remaining() < 4) {
+            flush();
+        }
+        pending.putInt(value);
+    }
+
+    /**
+     * 追加字节。
+     *
+     * @return 写入的起始位置
+     */
+    long append(byte[] src) throws IOException {
+        long start = size();
+        int off = 0;
+        while (off < src.length) {
+            if (!pending.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(pending.remaining(), src.length - off);
+            pending.put(src, off, n);
+            off += n;
+        }
+        return start;
+    }
+
+    long getLong(long pos) throws IOException {
+        scratch.clear();
+        read(pos, scratch);
+        return scratch.getLong(0);
+    }
+
+    int getInt(long pos) throws IOException {
+        scratch.clear().limit(4);
+        read(pos, scratch);
+        return scratch.getInt(0);
+    }
+
+    void putLong(long pos, long value) throws IOException {
+        scratch.clear();
+        scratch.putLong(0, value);
+        write(pos, scratch);
+    }
+
+    void read(long pos, byte[] dst) throws IOException {
+        read(pos, ByteBuffer.wrap(dst));
+    }
+
+    /**
+     * 从 pos 开始读满 dst 的剩余空间。
+     */
+    void read(long pos, ByteBuffer dst) throws IOException {
+        flush();
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, pos);
+            if (n < 0) {
+                throw new EOFException("临时文件位置越界: " + pos);
+            }
+            pos += n;
+        }
+    }
+
+    /**
+     * 从 pos 开始覆盖写入 src 的剩余内容，只能覆盖已追加的部分。
+     */
+    void write(long pos, ByteBuffer src) throws IOException {
+        flush();
+        while (src.hasRemaining()) {
+            pos += channel.write(src, pos);
+        }
+    }
+
+    private void flush() throws IOException {
+        if (pending.position() == 0) return;
+        pending.flip();
+        while (pending.hasRemaining()) {
+            written += channel.write(pending, written);
+        }
+        pending.clear();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
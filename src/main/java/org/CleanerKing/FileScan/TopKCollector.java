@@ -0,0 +1,141 @@
+package org.CleanerKing.FileScan;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流式统计最大的 K 个文件和 K 个目录，内存占用与目录树大小无关。
+ *
+ * 文件保存在大小为 K 的最小堆中，比堆顶还小的文件直接丢弃。目录大小在遍历过程中逐级汇总：
+ * 进入目录时建立累加器，目录访问完毕后把总大小交给目录的最小堆，并加到父目录的累加器上，
+ * 随后释放。同一时刻只保留正在遍历中的目录的累加器。
+ *
+ * 作为 FileTreeWalker 的访问器使用，串行与并行遍历均可。
+ */
+public class TopKCollector implements FileTreeWalker.Visitor {
+
+    private static final Comparator<FileEntry> BY_SIZE = Comparator.comparingLong(FileEntry::getSize);
+
+    private final int k;
+    private final Path root;
+    private final PriorityQueue<FileEntry> largestFiles;
+    private final PriorityQueue<FileEntry> largestDirs;
+    private final ConcurrentHashMap<Path, AtomicLong> pendingDirs = new ConcurrentHashMap<>();
+    private final AtomicLong fileCount = new AtomicLong();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    // 文件堆已满时的最小值，用于无锁快速拒绝
+    private volatile long fileThreshold = -1;
+
+    /**
+     * @param k    保留的文件数与目录数
+     * @param root 遍历的根目录，不计入目录排行
+     */
+    public TopKCollector(int k, Path root) {
+        this.k = Math.max(1, k);
+        this.root = root;
+        this.largestFiles = new PriorityQueue<>(this.k + 1, BY_SIZE);
+        this.largestDirs = new PriorityQueue<>(this.k + 1, BY_SIZE);
+    }
+
+    @Override
+    public boolean visitFile(Path file, BasicFileAttributes attrs) {
+        if (!attrs.isRegularFile()) return true;
+        long size = attrs.size();
+        fileCount.incrementAndGet();
+        totalBytes.addAndGet(size);
+
+        AtomicLong parent = file.getParent() != null ? pendingDirs.get(file.getParent()) : null;
+        if (parent != null) {
+            parent.addAndGet(size);
+        }
+
+        if (size > fileThreshold) {
+            synchronized (largestFiles) {
+                offer(largestFiles, new FileEntry(file, attrs));
+                if (largestFiles.size() == k) {
+                    fileThreshold = largestFiles.peek().getSize();
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void visitFileFailed(Path file, java.io.IOException exc) {
+        failedCount.incrementAndGet();
+    }
+
+    @Override
+    public void preVisitDirectory(Path dir) {
+        pendingDirs.put(dir, new AtomicLong());
+    }
+
+    @Override
+    public void postVisitDirectory(Path dir) {
+        AtomicLong total = pendingDirs.remove(dir);
+        if (total == null) return;
+        long size = total.get();
+        AtomicLong parent = dir.getParent() != null ? pendingDirs.get(dir.getParent()) : null;
+        if (parent != null) {
+            parent.addAndGet(size);
+        }
+        if (!dir.equals(root)) {
+            synchronized (largestDirs) {
+                offer(largestDirs, new FileEntry(dir, size, 0));
+            }
+        }
+    }
+
+    private void offer(PriorityQueue<FileEntry> heap, FileEntry entry) {
+        if (heap.size() < k) {
+            heap.add(entry);
+        } else if (entry.getSize() > heap.peek().getSize()) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    /**
+     * 最大的文件，从大到小排列。
+     */
+    public List<FileEntry> getLargestFiles() {
+        synchronized (largestFiles) {
+            return sortedDescending(largestFiles);
+        }
+    }
+
+    /**
+     * 最大的目录（含子目录的总大小），从大到小排列。
+     */
+    public List<FileEntry> getLargestDirectories() {
+        synchronized (largestDirs) {
+            return sortedDescending(largestDirs);
+        }
+    }
+
+    public long getFileCount() {
+        return fileCount.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    private static List<FileEntry> sortedDescending(PriorityQueue<FileEntry> heap) {
+        List<FileEntry> list = new ArrayList<>(heap);
+        list.sort(BY_SIZE.reversed());
+        return list;
+    }
+}
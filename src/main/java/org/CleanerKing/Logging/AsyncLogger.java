@@ -0,0 +1,303 @@
+package org.CleanerKing.Logging;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步日志：调用线程只把条目放进无锁环形缓冲区，由后台写入线程批量格式化并写入文件。
+ *
+ * 写入线程每次取空缓冲区后才刷新一次文件，大量连续日志合并为少量大块写入。
+ * 时间戳使用线程安全的 DateTimeFormatter，并在写入线程中按秒缓存。
+ * 缓冲区满时调用线程短暂等待写入线程腾出空间，不丢弃日志。
+ * 指定轮转策略时，写入线程在条目之间按大小或跨天轮转文件，压缩与清理在另一个后台线程中进行。
+ */
+public class AsyncLogger implements Closeable {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+    // 缓冲区为空时写入线程的最长休眠时间
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**
+     * 一条日志。
+     */
+    private static final class Entry {
+        final long time;
+        final String category;
+        final String message;
+
+        Entry(long time, String category, String message) {
+            this.time = time;
+            this.category = category;
+            this.message = message;
+        }
+    }
+
+    /**
+     * 统计写入字节数，用于按大小轮转。
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out, long initial) {
+            super(out);
+            this.count = initial;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private final LogRingBuffer<Entry> buffer;
+    private final Path logPath;
+    private final LogRotator rotator;
+    // 以下两项只由构造方法与写入线程访问
+    private CountingOutputStream counter;
+    private Writer out;
+    private long nextRotationMillis = Long.MAX_VALUE;
+    private final Thread writerThread;
+    private volatile boolean closed;
+    private volatile boolean idle;
+    // 已写入并刷新到文件的条目数
+    private volatile long flushedCount;
+
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedTimestamp;
+
+    /**
+     * @param logFile  日志文件，以追加方式打开，不轮转
+     * @param capacity 环形缓冲区容量（条目数）
+     */
+    public AsyncLogger(String logFile, int capacity) throws IOException {
+        this(logFile, capacity, null);
+    }
+
+    /**
+     * @param logFile  日志文件
+     * @param capacity 环形缓冲区容量（条目数）
+     * @param policy   轮转策略，null 表示始终追加到同一文件
+     */
+    public AsyncLogger(String logFile, int capacity, LogRotationPolicy policy) throws IOException {
+        this.buffer = new LogRingBuffer<>(capacity);
+        this.logPath = Paths.get(logFile).toAbsolutePath();
+        this.rotator = policy != null ? new LogRotator(logPath, policy) : null;
+        if (rotator != null) {
+            long now = System.currentTimeMillis();
+            // 上次运行留下的日志已超过大小或不是今天写的：先归档，不再无限追加
+            if (Files.isRegularFile(logPath) && Files.size(logPath) > 0) {
+                long lastModified = Files.getLastModifiedTime(logPath).toMillis();
+                if (shouldRotate(Files.size(logPath), lastModified < startOfDay(now))) {
+                    rotator.archive(lastModified);
+                }
+            }
+            if (policy.isRotateDaily()) {
+                nextRotationMillis = startOfNextDay(now);
+            }
+        }
+        openLog();
+        if (rotator != null) {
+            rotator.recoverAsync();
+        }
+        this.writerThread = new Thread(this::writeLoop, "log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * 记录一条日志，格式为 “[时间] 类别: 消息”。不进行格式化与 I/O。
+     */
+    public void log(String category, String message) {
+        if (closed) return;
+        Entry entry = new Entry(System.currentTimeMillis(), category, String.valueOf(message));
+        while (!buffer.offer(entry)) {
+            // 缓冲区已满：唤醒写入线程并稍等
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(100_000);
+            if (closed) return;
+        }
+        if (idle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * 等待此前记录的日志全部写入文件，最多等待 timeoutMillis。
+     *
+     * @return 是否在超时前完成
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = buffer.producedCount();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (flushedCount < target) {
+            if (!writerThread.isAlive() || System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(200_000);
+        }
+        return true;
+    }
+
+    /**
+     * 有时限地写完剩余日志后关闭文件，超时仍未写完的日志被丢弃。
+     */
+    public void close(long timeoutMillis) {
+        flush(timeoutMillis);
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(Math.max(1, timeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (rotator != null) {
+            rotator.shutdown();
+        }
+    }
+
+    @Override
+    public void close() {
+        close(2000);
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                int written = drain();
+                if (written > 0) {
+                    continue;
+                }
+                // 缓冲区已空：刷新一次，然后休眠等待新日志
+                out.flush();
+                flushedCount = buffer.consumedCount();
+                if (closed) {
+                    break;
+                }
+                idle = true;
+                // 休眠前再检查一次，避免错过休眠标志设置前写入的日志
+                if (buffer.producedCount() == buffer.consumedCount()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+            }
+        } catch (IOException e) {
+            closed = true;
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * 取出当前缓冲区中的所有条目写入文件缓冲。
+     *
+     * @return 写入的条目数
+     */
+    private int drain() throws IOException {
+        int count = 0;
+        Entry e;
+        while ((e = buffer.poll()) != null) {
+            if (rotator != null) {
+                rotateIfNeeded(e.time);
+            }
+            out.write('[');
+            out.write(timestamp(e.time));
+            out.write("] ");
+            out.write(e.category);
+            out.write(": ");
+            out.write(e.message);
+            out.write(System.lineSeparator());
+            count++;
+        }
+        return count;
+    }
+
+    private void openLog() throws IOException {
+        long existing = Files.isRegularFile(logPath) ? Files.size(logPath) : 0;
+        counter = new CountingOutputStream(new FileOutputStream(logPath.toFile(), true), existing);
+        out = new BufferedWriter(new OutputStreamWriter(counter, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+        if (rotator != null) {
+            rotator.setActiveBytes(existing);
+        }
+    }
+
+    private boolean shouldRotate(long size, boolean dayChanged) {
+        long max = rotator.getPolicy().getMaxFileBytes();
+        return (max > 0 && size >= max) || (dayChanged && rotator.getPolicy().isRotateDaily());
+    }
+
+    /**
+     * 写入线程在条目之间检查：超过大小或跨天时关闭当前文件、改名归档并重新打开，压缩交给后台线程。
+     * 计数只包括已经交给文件的字节，缓冲中的内容使轮转最多推迟一个写入缓冲区的大小。
+     */
+    private void rotateIfNeeded(long time) throws IOException {
+        boolean dayChanged = time >= nextRotationMillis;
+        if (dayChanged) {
+            nextRotationMillis = startOfNextDay(time);
+        }
+        if (counter.count == 0 || !shouldRotate(counter.count, dayChanged)) {
+            rotator.setActiveBytes(counter.count);
+            return;
+        }
+        out.close();
+        Path archive = null;
+        try {
+            archive = rotator.archive(time);
+        } catch (IOException e) {
+            // 改名失败（例如文件被其他程序占用）时继续追加，下一次达到阈值再试
+        }
+        openLog();
+        if (archive != null) {
+            rotator.compressAsync(archive);
+        } else {
+            counter.count = 0;
+        }
+    }
+
+    private static long startOfDay(long millis) {
+        ZoneId zone = ZoneId.systemDefault();
+        return Instant.ofEpochMilli(millis).atZone(zone).toLocalDate().atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static long startOfNextDay(long millis) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate next = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate().plusDays(1);
+        return next.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private String timestamp(long millis) {
+        long second = millis / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = TIMESTAMP.format(Instant.ofEpochMilli(millis));
+        }
+        return cachedTimestamp;
+    }
+}
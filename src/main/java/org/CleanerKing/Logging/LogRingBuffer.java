@@ -0,0 +1,84 @@
+package org.CleanerKing.Logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界无锁环形缓冲区，多个生产者、单个消费者。
+ *
+ * 每个槽位带一个序号：序号等于写入位置时槽位可写，等于写入位置 + 1 时槽位可读。
+ * 生产者只通过 CAS 竞争写入位置，不加锁；消费者只有日志写入线程一个，读取位置无需同步。
+ */
+final class LogRingBuffer<E> {
+
+    private final int mask;
+    private final Object[] entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // 只由消费者线程修改
+    private long head;
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.entries = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入一个元素，缓冲区已满时返回 false。
+     */
+    boolean offer(E e) {
+        while (true) {
+            long pos = tail.get();
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    entries[index] = e;
+                    // 序号的 volatile 写保证消费者能看到元素
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 取出一个元素，为空时返回 null。只能由消费者线程调用。
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E e = (E) entries[index];
+        entries[index] = null;
+        sequences.set(index, head + entries.length);
+        head++;
+        return e;
+    }
+
+    /**
+     * 已分配的写入位置总数（包括尚未完成写入的）。
+     */
+    long producedCount() {
+        return tail.get();
+    }
+
+    /**
+     * 消费者已取出的元素总数。只能由消费者线程调用。
+     */
+    long consumedCount() {
+        return head;
+    }
+}
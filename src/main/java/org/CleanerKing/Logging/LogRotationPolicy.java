@@ -0,0 +1,34 @@
+package org.CleanerKing.Logging;
+
+/**
+ * 日志轮转与保留策略。
+ */
+public final class LogRotationPolicy {
+
+    private final long maxFileBytes;
+    private final boolean rotateDaily;
+    private final long maxTotalBytes;
+
+    /**
+     * @param maxFileBytes  当前日志文件超过该大小时轮转，0 表示不按大小轮转
+     * @param rotateDaily   跨天时是否轮转
+     * @param maxTotalBytes 当前日志与全部归档的总大小上限，超出时删除最旧的归档，0 表示不限制
+     */
+    public LogRotationPolicy(long maxFileBytes, boolean rotateDaily, long maxTotalBytes) {
+        this.maxFileBytes = maxFileBytes;
+        this.rotateDaily = rotateDaily;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public long getMaxFileBytes() {
+        return maxFileBytes;
+    }
+
+    public boolean isRotateDaily() {
+        return rotateDaily;
+    }
+
+    public long getMaxTotalBytes() {
+        return maxTotalBytes;
+    }
+}
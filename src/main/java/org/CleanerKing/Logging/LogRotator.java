@@ -0,0 +1,221 @@
+package org.CleanerKing.Logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 日志归档：把当前日志改名为带时间戳的归档，在低优先级后台线程中压缩为 .gz 并执行保留策略。
+ *
+ * 归档命名为 “名称-yyyyMMdd-HHmmss.扩展名”，压缩后追加 .gz。压缩先写入 .tmp 再改名，
+ * 中途退出时只会留下未压缩的归档和临时文件，下次启动时继续压缩并清理。
+ */
+final class LogRotator {
+
+    private static final DateTimeFormatter ARCHIVE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final Path logFile;
+    private final Path dir;
+    private final String prefix;
+    private final String extension;
+    private final LogRotationPolicy policy;
+    private final ExecutorService compressor;
+    // 当前日志文件的大小，由写入线程更新，保留策略计入总量
+    private volatile long activeBytes;
+
+    LogRotator(Path logFile, LogRotationPolicy policy) {
+        this.logFile = logFile.toAbsolutePath();
+        this.dir = this.logFile.getParent();
+        String name = this.logFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.prefix = (dot > 0 ? name.substring(0, dot) : name) + "-";
+        this.extension = dot > 0 ? name.substring(dot) : "";
+        this.policy = policy;
+        this.compressor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "log-compress");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    LogRotationPolicy getPolicy() {
+        return policy;
+    }
+
+    void setActiveBytes(long bytes) {
+        activeBytes = bytes;
+    }
+
+    /**
+     * 把当前日志文件改名为归档，调用前日志文件必须已关闭。
+     *
+     * @param time 写入归档名的时间
+     * @return 归档路径
+     */
+    Path archive(long time) throws IOException {
+        String stamp = ARCHIVE_STAMP.format(Instant.ofEpochMilli(time));
+        Path target = dir.resolve(prefix + stamp + extension);
+        for (int n = 1; Files.exists(target) || Files.exists(gzipOf(target)); n++) {
+            target = dir.resolve(prefix + stamp + "-" + n + extension);
+        }
+        Files.move(logFile, target);
+        return target;
+    }
+
+    /**
+     * 在后台压缩归档，然后执行保留策略。
+     */
+    void compressAsync(Path archive) {
+        compressor.execute(() -> {
+            compress(archive);
+            enforceRetention();
+        });
+    }
+
+    /**
+     * 在后台处理上次退出时遗留的未压缩归档与临时文件，然后执行保留策略。
+     */
+    void recoverAsync() {
+        compressor.execute(() -> {
+            for (Path p : listArchives()) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    deleteQuietly(p);
+                } else if (!name.endsWith(GZIP_SUFFIX)) {
+                    compress(p);
+                }
+            }
+            enforceRetention();
+        });
+    }
+
+    /**
+     * 不再接受新任务，已提交的压缩仍在后台完成。
+     */
+    void shutdown() {
+        compressor.shutdown();
+    }
+
+    private void compress(Path archive) {
+        Path gzip = gzipOf(archive);
+        Path temp = gzip.resolveSibling(gzip.getFileName() + TEMP_SUFFIX);
+        try {
+            try (InputStream in = Files.newInputStream(archive);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), COPY_BUFFER_BYTES)) {
+                byte[] buf = new byte[COPY_BUFFER_BYTES];
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    out.write(buf, 0, n);
+                }
+            }
+            Files.move(temp, gzip, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(archive);
+        } catch (IOException e) {
+            // 压缩失败时保留未压缩的归档，它仍计入保留策略
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * 当前日志与归档的总大小超过上限时，从最旧的归档开始删除。
+     */
+    private void enforceRetention() {
+        long limit = policy.getMaxTotalBytes();
+        if (limit <= 0) return;
+        List<Archive> archives = new ArrayList<>();
+        long total = activeBytes;
+        for (Path p : listArchives()) {
+            if (p.getFileName().toString().endsWith(TEMP_SUFFIX)) continue;
+            try {
+                Archive a = new Archive(p, Files.size(p), Files.getLastModifiedTime(p).toMillis());
+                archives.add(a);
+                total += a.size;
+            } catch (IOException ignore) {
+            }
+        }
+        archives.sort(Comparator.comparingLong((Archive a) -> a.lastModified).thenComparing(a -> a.path));
+        for (int i = 0; i < archives.size() && total > limit; i++) {
+            Archive a = archives.get(i);
+            if (deleteQuietly(a.path)) {
+                total -= a.size;
+            }
+        }
+    }
+
+    private static final class Archive {
+        final Path path;
+        final long size;
+        final long lastModified;
+
+        Archive(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private List<Path> listArchives() {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix + "*")) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                String bare = name.endsWith(TEMP_SUFFIX) ? name.substring(0, name.length() - TEMP_SUFFIX.length()) : name;
+                if (bare.endsWith(GZIP_SUFFIX)) {
+                    bare = bare.substring(0, bare.length() - GZIP_SUFFIX.length());
+                }
+                if (bare.length() >= prefix.length() + extension.length() && bare.endsWith(extension)
+                        && isStamp(bare.substring(prefix.length(), bare.length() - extension.length()))) {
+                    result.add(p);
+                }
+            }
+        } catch (IOException ignore) {
+        }
+        return result;
+    }
+
+    /**
+     * 是否为归档时间戳（可带 -n 序号），避免误删名称相近的其他文件。
+     */
+    private static boolean isStamp(String s) {
+        if (s.length() < 15) return false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (i == 8 || i == 15) {
+                if (c != '-') return false;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return s.length() != 16;
+    }
+
+    private static Path gzipOf(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + GZIP_SUFFIX);
+    }
+
+    private static boolean deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -2,16 +2,17 @@ package org.CleanerKing.ModuleManager;
 
 import org.CleanerKing.Utils;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.function.Supplier;
 
 /**
  * 模块管理器，负责注册和管理所有模块。
  */
 public class ModuleManager {
-    private Map<String, Module> modules = new LinkedHashMap<>();
-    private Scanner scanner = Utils.scanner;
+    private Map<String, ModuleDescriptor> modules = new LinkedHashMap<>();
 
     /**
      * 注册一个模块，键为菜单选项
@@ -20,7 +21,44 @@ public class ModuleManager {
      * @param module 模块实例
      */
     public void registerModule(String key, Module module) {
-        modules.put(key, module);
+        modules.put(key, new ModuleDescriptor(module.getName(), () -> module));
+    }
+
+    /**
+     * 以描述注册模块：菜单只显示名称，模块在首次被选择时才创建，
+     * 启动时不加载各模块的类及其依赖。
+     *
+     * @param key     菜单选项
+     * @param name    菜单中显示的名称
+     * @param factory 创建模块实例
+     */
+    public void registerModule(String key, String name, Supplier<Module> factory) {
+        modules.put(key, new ModuleDescriptor(name, factory));
+    }
+
+    /**
+     * 模块描述：名称与创建方式，实例创建后缓存复用。
+     */
+    private static class ModuleDescriptor {
+        private final String name;
+        private final Supplier<Module> factory;
+        private Module instance;
+
+        ModuleDescriptor(String name, Supplier<Module> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Module get() {
+            if (instance == null) {
+                instance = factory.get();
+            }
+            return instance;
+        }
     }
 
     /**
@@ -28,36 +66,39 @@ public class ModuleManager {
      */
     public void showMainMenu() {
         while (true) {
-            Utils.clearScreen();
-            System.out.println("====================================================");
-            System.out.println("                 全能电脑清理工具");
-            System.out.println("====================================================");
-            for (Map.Entry<String, Module> entry : modules.entrySet()) {
-                System.out.printf("[%s] %s%n", entry.getKey(), entry.getValue().getName());
+            List<String> frame = new ArrayList<>();
+            frame.add("====================================================");
+            frame.add("                 全能电脑清理工具");
+            frame.add("====================================================");
+            for (Map.Entry<String, ModuleDescriptor> entry : modules.entrySet()) {
+                frame.add(String.format("[%s] %s", entry.getKey(), entry.getValue().getName()));
             }
-            System.out.println("----------------------------------------------------");
-            System.out.print("请选择功能 (输入对应数字，或输入 ESC 返回/退出): ");
+            frame.add("----------------------------------------------------");
+            frame.add("请选择功能 (输入对应数字，或输入 ESC 返回/退出): ");
+            // 菜单未变时只重写提示行，不清屏
+            Utils.renderScreen(frame);
 
-            String choice = scanner.nextLine().trim();
+            String choice = Utils.getUserInputWithEsc().trim();
             if (choice.equalsIgnoreCase("ESC")) {
                 System.out.print("确认退出程序？(Y/N): ");
-                String confirm = scanner.nextLine().trim().toUpperCase();
+                String confirm = Utils.getUserInput().trim().toUpperCase();
                 if (confirm.equals("Y")) {
                     System.out.println("已退出程序。感谢使用！");
-                    Utils.closeScanner();
+                    Utils.closeTerminalSession();
                     System.exit(0);
                 } else {
                     continue;
                 }
             }
 
-            Module selectedModule = modules.get(choice);
+            ModuleDescriptor selectedModule = modules.get(choice);
             if (selectedModule != null) {
-                selectedModule.execute();
+                selectedModule.get().execute();
             } else {
                 System.out.println("无效选择，请重新输入。");
                 Utils.pause();
             }
+            Utils.invalidateScreen();
         }
     }
 }
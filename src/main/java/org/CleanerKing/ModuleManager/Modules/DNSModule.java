@@ -498,14 +498,12 @@ public class DNSModule implements Module {
 
         if (primaryDNS != null) {
             // 修改主DNS
-            String command = String.format("netsh interface ipv4 set dns name=\"%s\" static %s primary", interfaceName, primaryDNS);
-            Utils.executeCommand(command);
+            Utils.executeCommand("netsh", "interface", "ipv4", "set", "dns", "name=" + interfaceName, "static", primaryDNS, "primary");
         }
 
         if (secondaryDNS != null) {
             // 设置备用DNS
-            String secondaryCommand = String.format("netsh interface ipv4 add dns name=\"%s\" %s index=2", interfaceName, secondaryDNS);
-            Utils.executeCommand(secondaryCommand);
+            Utils.executeCommand("netsh", "interface", "ipv4", "add", "dns", "name=" + interfaceName, secondaryDNS, "index=2");
         }
 
         String updatedPrimary = (primaryDNS != null) ? primaryDNS : "保持不变";
@@ -533,13 +531,11 @@ public class DNSModule implements Module {
 
         for (String interfaceName : activeInterfaces) {
             if (primaryDNS != null) {
-                String command = String.format("netsh interface ipv4 set dns name=\"%s\" static %s primary", interfaceName, primaryDNS);
-                Utils.executeCommand(command);
+                Utils.executeCommand("netsh", "interface", "ipv4", "set", "dns", "name=" + interfaceName, "static", primaryDNS, "primary");
             }
 
             if (secondaryDNS != null) {
-                String secondaryCommand = String.format("netsh interface ipv4 add dns name=\"%s\" %s index=2", interfaceName, secondaryDNS);
-                Utils.executeCommand(secondaryCommand);
+                Utils.executeCommand("netsh", "interface", "ipv4", "add", "dns", "name=" + interfaceName, secondaryDNS, "index=2");
             }
 
             String updatedPrimary = (primaryDNS != null) ? primaryDNS : "保持不变";
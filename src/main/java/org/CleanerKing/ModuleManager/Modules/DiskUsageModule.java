@@ -0,0 +1,182 @@
+package org.CleanerKing.ModuleManager.Modules;
+
+import org.CleanerKing.FileScan.DiskUsageTree;
+import org.CleanerKing.FileScan.FileTreeWalker;
+import org.CleanerKing.ModuleManager.Module;
+import org.CleanerKing.Utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+/**
+ * 磁盘占用分析模块（类似 ncdu）：并行统计目录树中每个目录的递归大小与文件数，
+ * 然后在终端中逐级浏览。统计结果缓存在内存中，下钻、返回上级和切换排序都不再读取磁盘。
+ */
+public class DiskUsageModule implements Module {
+
+    // 每页显示的子目录数
+    private static final int PAGE_SIZE = 30;
+    private static final int BAR_WIDTH = 20;
+
+    @Override
+    public String getName() {
+        return "磁盘占用分析";
+    }
+
+    @Override
+    public void execute() {
+        Utils.clearScreen();
+        System.out.println("=========== 磁盘占用分析 ===========");
+        System.out.print("请输入要分析的目录路径（如 C:\\Users），或ESC返回主菜单：");
+        String input = Utils.getUserInput().trim();
+        if (input.equalsIgnoreCase("ESC") || input.isEmpty()) {
+            return;
+        }
+        Path root;
+        try {
+            root = Paths.get(input).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            Utils.showWarning("无效路径: " + input);
+            Utils.pause();
+            return;
+        }
+        if (!Files.isDirectory(root)) {
+            Utils.showWarning("目录不存在: " + root);
+            Utils.pause();
+            return;
+        }
+
+        System.out.println("正在统计，请稍候...");
+        long startNanos = System.nanoTime();
+        DiskUsageTree tree = new DiskUsageTree(root);
+        try {
+            new FileTreeWalker(Collections.<String>emptySet(), Integer.MAX_VALUE, FileTreeWalker.Mode.PARALLEL,
+                    Runtime.getRuntime().availableProcessors()).walk(root, tree);
+        } catch (IOException e) {
+            Utils.showWarning("统计发生错误: " + e.getMessage());
+        }
+        if (tree.getRoot() < 0) {
+            Utils.showWarning("无法读取目录: " + root);
+            Utils.pause();
+            return;
+        }
+        Utils.logEvent(String.format("磁盘占用分析 %s：%d 个目录，耗时 %d 毫秒。", root, tree.size(),
+                (System.nanoTime() - startNanos) / 1_000_000));
+
+        browse(tree);
+    }
+
+    /**
+     * 交互浏览：输入序号进入子目录，.. 返回上级，S/C/N 切换排序，+/- 翻页，ESC 返回主菜单
+     */
+    private void browse(DiskUsageTree tree) {
+        int current = tree.getRoot();
+        DiskUsageTree.Order order = DiskUsageTree.Order.SIZE;
+        int page = 0;
+        while (true) {
+            int[] children = tree.getChildren(current, order);
+            int pages = Math.max(1, (children.length + PAGE_SIZE - 1) / PAGE_SIZE);
+            page = Math.min(page, pages - 1);
+
+            Utils.clearScreen();
+            long total = tree.getTotalSize(current);
+            System.out.println("====================================================");
+            System.out.println(tree.getPath(current));
+            System.out.printf("总计 %s，%d 个文件，%d 个子目录（排序：%s，第 %d/%d 页）%n",
+                    formatSize(total), tree.getTotalFiles(current), children.length, orderName(order), page + 1, pages);
+            System.out.println("----------------------------------------------------");
+            int from = page * PAGE_SIZE;
+            int to = Math.min(children.length, from + PAGE_SIZE);
+            for (int i = from; i < to; i++) {
+                int c = children[i];
+                long size = tree.getTotalSize(c);
+                System.out.printf("[%3d] %10s [%s] %8d 个文件  %s%n", i + 1, formatSize(size), bar(size, total),
+                        tree.getTotalFiles(c), tree.getName(c));
+            }
+            if (tree.getOwnFiles(current) > 0) {
+                long own = tree.getOwnSize(current);
+                System.out.printf("      %10s [%s] %8d 个文件  (当前目录下的文件)%n", formatSize(own), bar(own, total), tree.getOwnFiles(current));
+            }
+            System.out.println("----------------------------------------------------");
+            System.out.println("序号=进入子目录  ..=返回上级  S=按大小  C=按文件数  N=按名称  +/-=翻页  ESC=返回主菜单");
+            if (tree.getFailedCount() > 0) {
+                System.out.println("有 " + tree.getFailedCount() + " 个文件/目录无法访问，未计入统计。");
+            }
+            System.out.print("请输入: ");
+
+            String cmd = Utils.getUserInput().trim().toUpperCase();
+            switch (cmd) {
+                case "ESC":
+                    return;
+                case "..":
+                    if (tree.getParent(current) >= 0) {
+                        current = tree.getParent(current);
+                        page = 0;
+                    }
+                    break;
+                case "S":
+                    order = DiskUsageTree.Order.SIZE;
+                    break;
+                case "C":
+                    order = DiskUsageTree.Order.FILE_COUNT;
+                    break;
+                case "N":
+                    order = DiskUsageTree.Order.NAME;
+                    break;
+                case "+":
+                    page = Math.min(page + 1, pages - 1);
+                    break;
+                case "-":
+                    page = Math.max(page - 1, 0);
+                    break;
+                default:
+                    try {
+                        int index = Integer.parseInt(cmd) - 1;
+                        if (index >= 0 && index < children.length) {
+                            current = children[index];
+                            page = 0;
+                            break;
+                        }
+                    } catch (NumberFormatException ignored) {
+                    }
+                    Utils.showWarning("无效输入: " + cmd);
+                    Utils.pause();
+            }
+        }
+    }
+
+    private static String orderName(DiskUsageTree.Order order) {
+        switch (order) {
+            case SIZE:
+                return "大小";
+            case FILE_COUNT:
+                return "文件数";
+            default:
+                return "名称";
+        }
+    }
+
+    private static String bar(long part, long total) {
+        int filled = total > 0 ? (int) Math.round(BAR_WIDTH * (double) part / total) : 0;
+        StringBuilder sb = new StringBuilder(BAR_WIDTH);
+        for (int i = 0; i < BAR_WIDTH; i++) {
+            sb.append(i < filled ? '#' : ' ');
+        }
+        return sb.toString();
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes >= 1024L * 1024 * 1024) {
+            return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+        } else if (bytes >= 1024L * 1024) {
+            return String.format("%.2f MB", bytes / (1024.0 * 1024));
+        } else if (bytes >= 1024) {
+            return String.format("%.2f KB", bytes / 1024.0);
+        }
+        return bytes + " B";
+    }
+}
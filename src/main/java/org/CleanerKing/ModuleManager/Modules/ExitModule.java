@@ -17,12 +17,12 @@ public class ExitModule implements Module {
     public void execute() {
         Utils.clearScreen();
         System.out.print("确认退出程序？(Y=确认, N=取消, ESC=返回主菜单): ");
-        String confirm = Utils.scanner.nextLine().trim().toUpperCase();
+        String confirm = Utils.getUserInputWithEsc().trim().toUpperCase();
         switch (confirm) {
             case "Y":
                 Utils.logEvent("用户确认退出程序。");
                 System.out.println("已退出程序。感谢使用！");
-                Utils.closeScanner();
+                Utils.closeTerminalSession();
                 System.exit(0);
                 break;
             case "N":
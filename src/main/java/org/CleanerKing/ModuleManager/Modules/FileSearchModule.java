@@ -1,18 +1,31 @@
 package org.CleanerKing.ModuleManager.Modules;
 
+import org.CleanerKing.Cleanup.DeleteStats;
+import org.CleanerKing.Console.ScanKeyWatcher;
+import org.CleanerKing.Console.StatusLine;
+import org.CleanerKing.FileScan.ContentScanner;
+import org.CleanerKing.FileScan.DuplicateFinder;
+import org.CleanerKing.FileScan.FileEntry;
+import org.CleanerKing.FileScan.FileIndex;
+import org.CleanerKing.FileScan.FileTreeWalker;
+import org.CleanerKing.FileScan.KeywordMatcher;
+import org.CleanerKing.FileScan.PathTable;
+import org.CleanerKing.FileScan.ResultStore;
+import org.CleanerKing.FileScan.ScanController;
+import org.CleanerKing.FileScan.ScanPipeline;
+import org.CleanerKing.FileScan.TopKCollector;
 import org.CleanerKing.ModuleManager.Module;
+import org.CleanerKing.Settings;
 import org.CleanerKing.Utils;
 
-import javax.swing.*;
-import javax.swing.filechooser.FileSystemView;
 import java.io.*;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 /**
@@ -24,13 +37,23 @@ import java.util.regex.Pattern;
  *    - 快速模式（非递归，glob匹配）
  *    - 普通模式（递归 + 有限深度与文件数限制）
  *    - 深度模式（更大深度与文件数限制）
+ *    - 重复文件查找（大小 → 部分哈希 → 完整哈希）
+ *    - 最大文件/目录排行（单次遍历，内存只与 K 有关）
  *
  * 2. 灵活过滤条件：大小、日期、关键词、正则名匹配、文件大小上限等
  *
  * 3. 性能与用户体验优化：
  *    - 跳过系统目录
- *    - 定期进度与询问是否继续
- *    - 强制删除能力（handle.exe + taskkill）
+ *    - 串行/并行(ForkJoin)两种遍历方式，可在同一目录上对比
+ *    - 有界批处理流水线（遍历→过滤→收集），扫描内存不随目录规模增长
+ *    - 持久化文件索引，增量重扫只重新列出发生变化的目录
+ *    - 字节级内容扫描（UTF-8/GBK/UTF-16），所有关键词一次读取完成
+ *    - 关键词编译为 Aho-Corasick 自动机，文件名与内容均为线性时间匹配
+ *    - 识别二进制文件（扩展名表 + 文件头检测），跳过或截断其内容扫描
+ *    - 大量匹配结果溢出到临时文件，结果按大小排序并分页显示
+ *    - 结果路径保存为“父目录编号 + 名称”，完整路径只在显示或删除时拼接
+ *    - 扫描在后台线程进行，ESC/Ctrl+C 取消、P 暂停，进度由界面线程定时刷新
+ *    - 批量强制删除（一次 handle.exe 列出占用进程，每个进程只终止一次，按指数退避重试）
  */
 public class FileSearchModule implements Module {
 
@@ -38,10 +61,23 @@ public class FileSearchModule implements Module {
             "system volume information", "$recycle.bin", "windows", "program files", "program files (x86)", "programdata"
     ));
 
-    private static final int DEFAULT_MAX_DEPTH = 5;
+    // 默认最大深度与最大文件数见配置项 scanMaxDepth、scanMaxFiles
     private static final long DEFAULT_MAX_FILE_SIZE = Long.MAX_VALUE;
-    private static final int SCAN_LIMIT_BEFORE_ASK = 10000;
-    private static final int MAX_SCAN_FILES_DEFAULT = 100000;
+    // 流水线每批文件数与队列容量（批次数），决定扫描时的内存上限
+    private static final int PIPELINE_BATCH_SIZE = 256;
+    private static final int PIPELINE_QUEUE_CAPACITY = 64;
+    // 索引在此时间内视为有效，直接回答查询而不访问磁盘
+    private static final long INDEX_FRESH_MILLIS = 10 * 60 * 1000L;
+    // 取消后等待遍历线程结束的最长时间，超时则不再等待，由其在后台结束
+    private static final long CANCEL_JOIN_MILLIS = 2000;
+    private static final int TOP_N_DEFAULT = 20;
+    // 保存在堆上的搜索结果数，超出部分写入临时文件
+    private static final int RESULT_HEAP_LIMIT = 100000;
+    // 结果列表每页显示的条数
+    private static final int RESULT_PAGE_SIZE = 200;
+    // 全部删除时每批交给强制删除的路径数，结果逐批从结果列表读出
+    private static final int DELETE_BATCH_SIZE = 10000;
+    private static final long PROGRESS_INTERVAL_MILLIS = 250;
 
     @Override
     public String getName() {
@@ -58,7 +94,9 @@ public class FileSearchModule implements Module {
         System.out.println("[2] 快速模式（非递归，仅文件名glob匹配）");
         System.out.println("[3] 普通模式（有限递归深度和文件数）");
         System.out.println("[4] 深度模式（更大深度和文件数）");
-        System.out.print("请输入选项(1-4，ESC返回主菜单)：");
+        System.out.println("[5] 重复文件查找");
+        System.out.println("[6] 最大文件/目录排行");
+        System.out.print("请输入选项(1-6，ESC返回主菜单)：");
         String modeChoice = Utils.getUserInput().trim();
         if (modeChoice.equalsIgnoreCase("ESC") || modeChoice.isEmpty()) {
             System.out.println("返回主菜单。");
@@ -79,6 +117,12 @@ public class FileSearchModule implements Module {
             case "4":
                 deepModeSearch();
                 break;
+            case "5":
+                duplicateSearch();
+                break;
+            case "6":
+                largestSearch();
+                break;
             default:
                 System.out.println("无效选择，返回主菜单。");
                 Utils.pause();
@@ -110,7 +154,7 @@ public class FileSearchModule implements Module {
      * 快速模式：非递归glob匹配
      */
     private void quickModeSearch() {
-        String dir = chooseDirectoryWithDialog();
+        String dir = Utils.chooseDirectory("选择要扫描的目录");
         if (dir == null) {
             System.out.println("未选择目录，返回主菜单。");
             Utils.pause();
@@ -153,15 +197,15 @@ public class FileSearchModule implements Module {
      * 普通模式：递归+有深度与文件数限制
      */
     private void normalModeSearch() {
-        String dir = chooseDirectoryWithDialog();
+        String dir = Utils.chooseDirectory("选择要扫描的目录");
         if (dir == null) {
             System.out.println("未选择目录，返回主菜单。");
             Utils.pause();
             return;
         }
 
-        int maxDepth = askMaxDepth(DEFAULT_MAX_DEPTH);
-        int maxScanFiles = askMaxScanFiles(MAX_SCAN_FILES_DEFAULT);
+        int maxDepth = askMaxDepth(Utils.getScanMaxDepth());
+        int maxScanFiles = askMaxScanFiles(Utils.getScanMaxFiles());
         Long[] sizeRange = askSizeFilter();
         Long minBytes = sizeRange[0];
         Long maxBytes = sizeRange[1];
@@ -169,19 +213,24 @@ public class FileSearchModule implements Module {
         Long startTime = dateRange[0];
         Long endTime = dateRange[1];
         List<String> keywords = askKeywords();
+        boolean scanBinaries = !keywords.isEmpty() && askYesNo("是否强制扫描二进制文件（镜像、视频、DLL等）的内容？(Y=是，N=否)", false);
         Pattern fileNamePattern = askFileNamePattern();
         long maxFileSize = askMaxFileSize(DEFAULT_MAX_FILE_SIZE);
+        long timeBudgetMillis = askTimeBudget();
+        // 索引复用未改动目录中的记录，文件被修改后大小与日期可能过时，默认不使用
+        boolean useIndex = askYesNo("是否使用文件索引加速搜索？文件大小与修改日期可能不是最新 (Y=是，N=否)", false);
+        FileTreeWalker.Mode walkMode = useIndex ? FileTreeWalker.Mode.PARALLEL : askWalkMode();
 
-        List<Utils.FileDetail> results = deepScan(dir, maxDepth, minBytes, maxBytes, startTime, endTime, keywords, fileNamePattern, maxFileSize, maxScanFiles);
-
-        showResultsAndDelete(results);
+        try (ResultStore results = deepScan(dir, maxDepth, minBytes, maxBytes, startTime, endTime, keywords, fileNamePattern, maxFileSize, maxScanFiles, timeBudgetMillis, walkMode, useIndex, scanBinaries)) {
+            showResultsAndDelete(results);
+        }
     }
 
     /**
      * 深度模式：更大深度与文件数限制
      */
     private void deepModeSearch() {
-        String dir = chooseDirectoryWithDialog();
+        String dir = Utils.chooseDirectory("选择要扫描的目录");
         if (dir == null) {
             System.out.println("未选择目录，返回主菜单。");
             Utils.pause();
@@ -197,30 +246,167 @@ public class FileSearchModule implements Module {
         Long startTime = dateRange[0];
         Long endTime = dateRange[1];
         List<String> keywords = askKeywords();
+        boolean scanBinaries = !keywords.isEmpty() && askYesNo("是否强制扫描二进制文件（镜像、视频、DLL等）的内容？(Y=是，N=否)", false);
         Pattern fileNamePattern = askFileNamePattern();
         long maxFileSize = askMaxFileSize(DEFAULT_MAX_FILE_SIZE);
+        long timeBudgetMillis = askTimeBudget();
+        // 索引复用未改动目录中的记录，文件被修改后大小与日期可能过时，默认不使用
+        boolean useIndex = askYesNo("是否使用文件索引加速搜索？文件大小与修改日期可能不是最新 (Y=是，N=否)", false);
+        FileTreeWalker.Mode walkMode = useIndex ? FileTreeWalker.Mode.PARALLEL : askWalkMode();
 
-        List<Utils.FileDetail> results = deepScan(dir, maxDepth, minBytes, maxBytes, startTime, endTime, keywords, fileNamePattern, maxFileSize, maxScanFiles);
-
-        showResultsAndDelete(results);
+        try (ResultStore results = deepScan(dir, maxDepth, minBytes, maxBytes, startTime, endTime, keywords, fileNamePattern, maxFileSize, maxScanFiles, timeBudgetMillis, walkMode, useIndex, scanBinaries)) {
+            showResultsAndDelete(results);
+        }
     }
 
     /**
-     * 使用文件对话框选择目录
+     * 重复文件查找：按大小 → 部分哈希 → 完整哈希逐级筛选，每组保留一份
      */
-    private String chooseDirectoryWithDialog() {
-        System.out.println("将弹出文件夹选择对话框，请选择要扫描的目录...");
-        JFileChooser chooser = new JFileChooser(FileSystemView.getFileSystemView().getHomeDirectory());
-        chooser.setDialogTitle("请选择要扫描的目录");
-        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
-        int returnValue = chooser.showOpenDialog(null);
-        if (returnValue == JFileChooser.APPROVE_OPTION) {
-            File selectedDir = chooser.getSelectedFile();
-            if (selectedDir != null && selectedDir.isDirectory()) {
-                return selectedDir.getAbsolutePath();
+    private void duplicateSearch() {
+        String dir = Utils.chooseDirectory("选择要扫描的目录");
+        if (dir == null) {
+            System.out.println("未选择目录，返回主菜单。");
+            Utils.pause();
+            return;
+        }
+
+        int maxDepth = askMaxDepth(20);
+        Long[] sizeRange = askSizeFilter();
+        Long minBytes = sizeRange[0];
+        Long maxBytes = sizeRange[1];
+
+        System.out.println("正在收集文件...");
+        long startNanos = System.nanoTime();
+        List<FileEntry> files = Collections.synchronizedList(new ArrayList<>());
+        PathTable paths = new PathTable();
+        AtomicInteger inaccessibleCount = new AtomicInteger(0);
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            new FileTreeWalker(SKIP_DIRECTORIES, maxDepth, FileTreeWalker.Mode.PARALLEL, threads).walk(Paths.get(dir), new FileTreeWalker.Visitor() {
+                @Override
+                public boolean visitFile(Path fp, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && filterBySizeAndDate(attrs.size(), 0, minBytes, maxBytes, null, null)) {
+                        files.add(new FileEntry(paths, paths.add(fp.toAbsolutePath()), attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }
+                    return true;
+                }
+
+                @Override
+                public void visitFileFailed(Path f, IOException exc) {
+                    inaccessibleCount.incrementAndGet();
+                }
+            });
+        } catch (IOException e) {
+            Utils.showWarning("扫描发生错误: " + e.getMessage());
+        }
+        System.out.printf("共收集 %d 个文件，正在比较内容...%n", files.size());
+
+        DuplicateFinder finder = new DuplicateFinder(threads);
+        List<List<FileEntry>> groups;
+        try {
+            groups = finder.findDuplicates(files);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Utils.showWarning("重复文件查找被中断。");
+            Utils.pause();
+            return;
+        }
+        System.out.printf("大小相同的候选文件 %d 个，部分哈希后剩余 %d 个，共哈希 %.2f MB，耗时 %d 毫秒。%n",
+                finder.getSizeCandidates(), finder.getPartialCandidates(), finder.getBytesHashed() / (1024.0 * 1024.0),
+                (System.nanoTime() - startNanos) / 1_000_000);
+        if (inaccessibleCount.get() > 0) {
+            System.out.println("有 " + inaccessibleCount.get() + " 个文件/目录无法访问（可能是系统文件或权限不足）。");
+        }
+
+        if (groups.isEmpty()) {
+            System.out.println("未找到重复文件。");
+            Utils.pause();
+            return;
+        }
+
+        // 组内都是不同的物理文件（链接与硬链接已合并），按真实路径排序，保留第一个，
+        // 其余副本进入删除流程，因此无论如何删除都会留下一份
+        List<Utils.FileDetail> redundant = new ArrayList<>();
+        long wasted = 0;
+        System.out.println("========== 重复文件组 ==========");
+        for (int g = 0; g < groups.size(); g++) {
+            List<FileEntry> group = groups.get(g);
+            long size = group.get(0).getSize();
+            System.out.printf("[组 %d] %d 份，每份 %.2f MB%n", g + 1, group.size(), size / (1024.0 * 1024.0));
+            for (int i = 0; i < group.size(); i++) {
+                FileEntry entry = group.get(i);
+                System.out.println((i == 0 ? "  保留: " : "  副本: ") + entry.getPath());
+                if (i > 0) {
+                    redundant.add(new Utils.FileDetail(paths, entry.getPathId(paths), size));
+                    wasted += size;
+                }
             }
         }
-        return null;
+        System.out.printf("共 %d 组重复文件，删除副本可释放 %.2f MB。%n", groups.size(), wasted / (1024.0 * 1024.0));
+        Utils.pause();
+
+        showResultsAndDelete(redundant);
+    }
+
+    /**
+     * 最大文件/目录排行：一次遍历同时统计最大的 N 个文件和 N 个目录（目录大小含子目录）
+     */
+    private void largestSearch() {
+        String dir = Utils.chooseDirectory("选择要扫描的目录");
+        if (dir == null) {
+            System.out.println("未选择目录，返回主菜单。");
+            Utils.pause();
+            return;
+        }
+
+        int maxDepth = askMaxDepth(64);
+        int topN = askTopN(TOP_N_DEFAULT);
+
+        System.out.println("正在统计...");
+        long startNanos = System.nanoTime();
+        Path root = Paths.get(dir);
+        TopKCollector collector = new TopKCollector(topN, root);
+        try {
+            new FileTreeWalker(SKIP_DIRECTORIES, maxDepth, FileTreeWalker.Mode.PARALLEL, Runtime.getRuntime().availableProcessors()).walk(root, collector);
+        } catch (IOException e) {
+            Utils.showWarning("扫描发生错误: " + e.getMessage());
+        }
+        System.out.printf("共 %d 个文件，总计 %.2f MB，耗时 %d 毫秒。%n", collector.getFileCount(),
+                collector.getTotalBytes() / (1024.0 * 1024.0), (System.nanoTime() - startNanos) / 1_000_000);
+        if (collector.getFailedCount() > 0) {
+            System.out.println("有 " + collector.getFailedCount() + " 个文件/目录无法访问（可能是系统文件或权限不足）。");
+        }
+
+        System.out.println("========== 最大的目录 ==========");
+        List<FileEntry> dirs = collector.getLargestDirectories();
+        for (int i = 0; i < dirs.size(); i++) {
+            FileEntry d = dirs.get(i);
+            System.out.printf("[%d] %s (大小: %.2f MB)%n", i + 1, d.getPath().toAbsolutePath(), d.getSize() / (1024.0 * 1024.0));
+        }
+        Utils.pause();
+
+        // 最大的文件进入通用的结果列表与删除流程
+        List<Utils.FileDetail> files = new ArrayList<>();
+        for (FileEntry f : collector.getLargestFiles()) {
+            files.add(new Utils.FileDetail(f.getPath().toAbsolutePath().toString(), f.getSize()));
+        }
+        showResultsAndDelete(files);
+    }
+
+    /**
+     * 询问排行数量
+     */
+    private int askTopN(int defaultN) {
+        System.out.print("请输入排行数量（默认" + defaultN + "）：");
+        String input = Utils.getUserInput().trim();
+        if (input.isEmpty()) return defaultN;
+        try {
+            int n = Integer.parseInt(input);
+            if (n > 0) return n;
+        } catch (NumberFormatException ignored) {
+        }
+        System.out.println("输入无效，使用默认值 " + defaultN + "。");
+        return defaultN;
     }
 
     private boolean askYesNo(String prompt, boolean defaultVal) {
@@ -251,6 +437,22 @@ public class FileSearchModule implements Module {
         }
     }
 
+    /**
+     * 询问扫描时间上限，0 表示不限制
+     */
+    private long askTimeBudget() {
+        System.out.print("请输入扫描时间上限（秒，回车不限制）: ");
+        String input = Utils.getUserInput().trim();
+        if (input.isEmpty()) return 0;
+        try {
+            long seconds = Long.parseLong(input);
+            if (seconds > 0) return seconds * 1000;
+        } catch (NumberFormatException ignored) {
+        }
+        System.out.println("无效输入，不限制扫描时间。");
+        return 0;
+    }
+
     private int askMaxScanFiles(int defaultLimit) {
         System.out.print("请输入最大扫描文件数上限(回车默认" + defaultLimit + "): ");
         String input = Utils.getUserInput().trim();
@@ -268,146 +470,168 @@ public class FileSearchModule implements Module {
         }
     }
 
+    private FileTreeWalker.Mode askWalkMode() {
+        System.out.print("请选择遍历方式([1] 并行遍历 [2] 串行遍历，回车默认并行): ");
+        String input = Utils.getUserInput().trim();
+        if (input.equals("2")) return FileTreeWalker.Mode.SERIAL;
+        if (!input.isEmpty() && !input.equals("1")) {
+            System.out.println("无效选择，使用并行遍历。");
+        }
+        return FileTreeWalker.Mode.PARALLEL;
+    }
+
     private boolean filterBySizeAndDate(File file, Long minBytes, Long maxBytes, Long startTime, Long endTime) {
-        long size = file.length();
+        return filterBySizeAndDate(file.length(), file.lastModified(), minBytes, maxBytes, startTime, endTime);
+    }
+
+    private boolean filterBySizeAndDate(long size, long lastModified, Long minBytes, Long maxBytes, Long startTime, Long endTime) {
         if (minBytes != null && size < minBytes) return false;
         if (maxBytes != null && size > maxBytes) return false;
-        long lastModified = file.lastModified();
         if (startTime != null && lastModified < startTime) return false;
         if (endTime != null && lastModified > endTime) return false;
         return true;
     }
 
-    private boolean filterFile(File file, Long minBytes, Long maxBytes, Long startTime, Long endTime, List<String> keywords, Pattern fileNamePattern) {
-        if (!filterBySizeAndDate(file, minBytes, maxBytes, startTime, endTime)) return false;
+    /**
+     * @param keywordMatcher 本次搜索编译好的关键词匹配器，无关键词时为null
+     */
+    private boolean filterFile(FileEntry entry, Long minBytes, Long maxBytes, Long startTime, Long endTime, KeywordMatcher keywordMatcher, Pattern fileNamePattern) {
+        if (!filterBySizeAndDate(entry.getSize(), entry.getLastModified(), minBytes, maxBytes, startTime, endTime)) return false;
 
-        String fileName = file.getName();
+        String fileName = entry.getFileName();
         if (fileNamePattern != null && !fileNamePattern.matcher(fileName).matches()) {
             return false;
         }
 
-        if (!keywords.isEmpty()) {
-            String fileNameLower = fileName.toLowerCase();
-            for (String kw : keywords) {
-                String k = kw.toLowerCase();
-                if (!fileNameLower.contains(k)) {
-                    // 文件名不包含关键词，检查内容
-                    if (!checkFileContent(file, k)) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+        return keywordMatcher == null || keywordMatcher.matchesAll(fileName, entry.getPath());
     }
 
-    private boolean checkFileContent(File file, String kw) {
-        if (!file.isFile() || !file.canRead()) return false;
-        // 限制行数
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
-            int lineCount = 0;
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.toLowerCase().contains(kw)) return true;
-                lineCount++;
-                if (lineCount > 50000) {
-                    break;
-                }
-            }
-        } catch (IOException e) {
-            // 忽略
-        }
-        return false;
-    }
+    private ResultStore deepScan(String dir, int maxDepth, Long minBytes, Long maxBytes, Long startTime, Long endTime, List<String> keywords, Pattern fileNamePattern, long maxFileSize, int maxScanFiles, long timeBudgetMillis, FileTreeWalker.Mode walkMode, boolean useIndex, boolean scanBinaries) {
+        Path root = Paths.get(dir);
+        FileIndex index = useIndex && Files.isDirectory(root) ? FileIndex.load(Settings.getDataDirectory().resolve(FileIndex.INDEX_FILE)) : null;
+        // 索引条目本身就在索引的路径表中，直接复用其编号
+        PathTable paths = index != null ? index.getPaths() : new PathTable();
 
-    private List<Utils.FileDetail> deepScan(String dir, int maxDepth, Long minBytes, Long maxBytes, Long startTime, Long endTime, List<String> keywords, Pattern fileNamePattern, long maxFileSize, int maxScanFiles) {
-        List<Utils.FileDetail> matched = Collections.synchronizedList(new ArrayList<>());
-        AtomicInteger scanned = new AtomicInteger(0);
-        AtomicInteger matchedCount = new AtomicInteger(0);
+        // 只由流水线的收集线程写入
+        ResultStore matched = new ResultStore(RESULT_HEAP_LIMIT);
         AtomicInteger inaccessibleCount = new AtomicInteger(0);
-        AtomicBoolean askedContinue = new AtomicBoolean(false);
-
-        // 使用数组存储 maxScanFiles，以便在lambda中修改
-        final int[] scanLimit = {maxScanFiles};
-
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-
-        try {
-            Files.walkFileTree(Paths.get(dir), EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
-                    String dirName = d.getFileName() != null ? d.getFileName().toString().toLowerCase() : "";
-                    if (SKIP_DIRECTORIES.contains(dirName)) {
-                        return FileVisitResult.SKIP_SUBTREE;
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFile(Path fp, BasicFileAttributes attrs) {
-                    int count = scanned.get();
-                    if (count >= scanLimit[0]) {
-                        System.out.print("已扫描超过设定上限(" + scanLimit[0] + "个文件)，继续吗？(Y=继续,N=停止): ");
-                        String c = Utils.getUserInput().trim().toUpperCase();
-                        if (c.equals("N")) {
-                            return FileVisitResult.TERMINATE;
-                        } else {
-                            scanLimit[0] *= 2; // 增加上限
-                        }
-                    }
+        ScanController controller = new ScanController(maxScanFiles, timeBudgetMillis);
+
+        // 关键词自动机每次搜索只编译一次
+        KeywordMatcher keywordMatcher = keywords.isEmpty() ? null : new KeywordMatcher(keywords, Utils.getContentScanMaxBytes(), scanBinaries);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ScanPipeline<FileEntry> pipeline = new ScanPipeline<>(threads, PIPELINE_BATCH_SIZE, PIPELINE_QUEUE_CAPACITY,
+                entry -> filterFile(entry, minBytes, maxBytes, startTime, endTime, keywordMatcher, fileNamePattern),
+                entry -> {
+                    matched.add(new Utils.FileDetail(paths, entry.getPathId(paths), entry.getSize()));
+                    controller.onMatched();
+                });
+
+        // 遍历与索引两种来源共用的入口：经控制器检查取消、暂停与预算后送入流水线，从不读取标准输入
+        Predicate<FileEntry> offer = entry -> {
+            if (!controller.onFileVisited()) {
+                return false;
+            }
+            if (entry.getSize() > maxFileSize) {
+                return true;
+            }
+            try {
+                // 过滤队列已满时在此阻塞，遍历不会跑在过滤线程前面太多
+                pipeline.submit(entry);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
 
-                    if (!askedContinue.get() && matchedCount.get() == 0 && count > SCAN_LIMIT_BEFORE_ASK && count % 2000 == 0) {
-                        System.out.print("已扫描 " + count + " 个文件，尚未找到匹配文件，是否继续？(Y=继续，N=停止): ");
-                        String c = Utils.getUserInput().trim().toUpperCase();
-                        if (c.equals("N")) {
-                            return FileVisitResult.TERMINATE;
-                        } else {
-                            askedContinue.set(true);
+        String[] source = {walkMode == FileTreeWalker.Mode.SERIAL ? "串行遍历" : "并行遍历"};
+        Thread scanThread = new Thread(() -> {
+            try {
+                if (index != null) {
+                    if (index.isFresh(root, maxDepth, INDEX_FRESH_MILLIS)) {
+                        source[0] = "索引";
+                    } else {
+                        FileIndex.RefreshStats stats = index.refresh(root, maxDepth, SKIP_DIRECTORIES, threads, controller);
+                        inaccessibleCount.addAndGet(stats.getFailedEntries());
+                        source[0] = String.format("增量索引，重新列出 %d 个目录，复用 %d 个",
+                                stats.getListedDirectories(), stats.getReusedDirectories());
+                        // 取消时不保存，尽快结束
+                        if (!controller.isCancelled()) {
+                            try {
+                                index.save();
+                            } catch (IOException e) {
+                                Utils.logDetail("无法保存文件索引: " + e.getMessage());
+                            }
                         }
                     }
-
-                    if (attrs.size() > maxFileSize) {
-                        scanned.incrementAndGet();
-                        return FileVisitResult.CONTINUE;
+                    if (!controller.isCancelled()) {
+                        index.forEach(root, maxDepth, SKIP_DIRECTORIES, offer);
                     }
+                } else {
+                    FileTreeWalker walker = new FileTreeWalker(SKIP_DIRECTORIES, maxDepth, walkMode, threads);
+                    walker.walk(root, new FileTreeWalker.Visitor() {
+                        @Override
+                        public boolean visitFile(Path fp, BasicFileAttributes attrs) {
+                            return offer.test(new FileEntry(fp, attrs));
+                        }
 
-                    executor.submit(() -> {
-                        try {
-                            File file = fp.toFile();
-                            if (filterFile(file, minBytes, maxBytes, startTime, endTime, keywords, fileNamePattern)) {
-                                matched.add(new Utils.FileDetail(file.getAbsolutePath(), file.length()));
-                                matchedCount.incrementAndGet();
-                                synchronized (System.out) {
-                                    System.out.printf("找到文件: %s (%.2f MB)%n", file.getAbsolutePath(), file.length() / (1024.0 * 1024.0));
-                                }
-                            }
-                            int c = scanned.incrementAndGet();
-                            if (c % 2000 == 0) {
-                                synchronized (System.out) {
-                                    System.out.printf("已扫描文件: %d，匹配文件: %d%n", c, matchedCount.get());
-                                }
-                            }
-                        } catch (Exception e) {
-                            // 忽略
+                        @Override
+                        public void visitFileFailed(Path f, IOException exc) {
+                            inaccessibleCount.incrementAndGet();
                         }
                     });
-                    return FileVisitResult.CONTINUE;
                 }
-
-                @Override
-                public FileVisitResult visitFileFailed(Path f, IOException exc) {
-                    inaccessibleCount.incrementAndGet();
-                    return FileVisitResult.CONTINUE;
+                if (controller.isCancelled()) {
+                    pipeline.abort();
+                } else {
+                    pipeline.finish();
                 }
-            });
+            } catch (IOException e) {
+                Utils.logDetail("扫描发生错误: " + e.getMessage());
+                pipeline.abort();
+            } catch (InterruptedException e) {
+                pipeline.abort();
+            } finally {
+                controller.finish();
+            }
+        }, "scan-walker");
 
-            executor.shutdown();
-            if (!executor.awaitTermination(60, TimeUnit.MINUTES)) {
-                executor.shutdownNow();
-                Utils.showWarning("扫描时间过长，中止扫描。");
+        System.out.println("正在扫描...（按 ESC 或 Ctrl+C 取消，按 P 暂停/继续）");
+        scanThread.start();
+        superviseScan(controller);
+        try {
+            if (controller.isCancelled()) {
+                // 取消后不等待剩余的过滤任务；遍历线程只等待有限时间，结果以收集线程退出时为准
+                pipeline.abort();
+                scanThread.join(CANCEL_JOIN_MILLIS);
+                if (scanThread.isAlive()) {
+                    Utils.logDetail("取消后遍历线程仍在结束中，已不再等待。");
+                }
+                pipeline.awaitCollector(CANCEL_JOIN_MILLIS);
+            } else {
+                scanThread.join();
             }
-        } catch (IOException | InterruptedException e) {
-            Utils.showWarning("扫描发生错误: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        System.out.printf("%s（%s），共扫描 %d 个文件，匹配 %d 个，耗时 %d 毫秒。%n",
+                controller.isCancelled() ? "扫描已取消" : "扫描完成", source[0],
+                controller.getScanned(), matched.size(), controller.getElapsedMillis());
+        if (keywordMatcher != null) {
+            ContentScanner cs = keywordMatcher.getContentScanner();
+            System.out.printf("内容扫描：读取 %.2f MB，识别二进制文件 %d 个，避免读取 %.2f MB。%n",
+                    cs.getBytesScanned() / (1024.0 * 1024.0), cs.getBinaryFiles(), cs.getBytesAvoided() / (1024.0 * 1024.0));
+        }
+        if (matched.getSpilledCount() > 0) {
+            System.out.printf("匹配结果较多，其中 %d 个已写入临时文件。%n", matched.getSpilledCount());
+        }
+        try {
+            matched.sortBySizeDescending();
+        } catch (IOException e) {
+            Utils.showWarning("结果排序失败: " + e.getMessage());
         }
 
         if (matched.isEmpty()) {
@@ -421,6 +645,51 @@ public class FileSearchModule implements Module {
         return matched;
     }
 
+    /**
+     * 界面线程：监听按键并渲染进度，预算用尽时询问是否继续，直到扫描结束或取消。
+     */
+    private void superviseScan(ScanController controller) {
+        while (true) {
+            ScanController.State state;
+            ScanKeyWatcher keys = ScanKeyWatcher.start(Utils.getTerminalSession().getTerminal(), controller);
+            StatusLine status = Utils.openStatusLine();
+            controller.startProgress((scanned, matchedCount, elapsed, s) ->
+                    status.set(String.format("%s，匹配 %d 个，用时 %d 秒%s",
+                            scanned == 0 && controller.getDirectories() > 0
+                                    ? "正在更新索引，已检查 " + controller.getDirectories() + " 个目录"
+                                    : "已扫描 " + scanned + " 个文件",
+                            matchedCount, elapsed / 1000,
+                            s == ScanController.State.PAUSED ? "（已暂停，按 P 继续）" : "")), PROGRESS_INTERVAL_MILLIS);
+            try {
+                state = controller.awaitAttention();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                controller.cancel();
+                state = ScanController.State.CANCELLED;
+            } finally {
+                controller.stopProgress();
+                if (keys != null) {
+                    keys.close();
+                }
+                status.close();
+            }
+
+            if (state != ScanController.State.FILE_BUDGET_REACHED && state != ScanController.State.TIME_BUDGET_REACHED) {
+                return;
+            }
+            // 遍历线程在控制器上等待，此时只有界面线程在输出
+            System.out.print(state == ScanController.State.FILE_BUDGET_REACHED
+                    ? "已扫描超过设定上限(" + controller.getScanned() + "个文件)，继续吗？(Y=继续,N=停止): "
+                    : "已超过设定的扫描时间，继续吗？(Y=继续,N=停止): ");
+            String c = Utils.getUserInput().trim().toUpperCase();
+            if (c.equals("N")) {
+                controller.cancel();
+                return;
+            }
+            controller.extendBudget();
+        }
+    }
+
     private void showResultsAndDelete(List<Utils.FileDetail> results) {
         if (results.isEmpty()) {
             Utils.pause();
@@ -429,6 +698,10 @@ public class FileSearchModule implements Module {
         Utils.clearScreen();
         System.out.println("========== 符合条件的文件列表 ==========");
         for (int i = 0; i < results.size(); i++) {
+            if (i > 0 && i % RESULT_PAGE_SIZE == 0) {
+                System.out.print("已显示 " + i + "/" + results.size() + " 个，回车显示更多，输入 Q 结束列表: ");
+                if (Utils.getUserInput().trim().equalsIgnoreCase("Q")) break;
+            }
             Utils.FileDetail fd = results.get(i);
             System.out.printf("[%d] %s (%.2f MB)%n", i+1, fd.getPath(), fd.getSize()/(1024.0*1024.0));
         }
@@ -459,10 +732,19 @@ public class FileSearchModule implements Module {
 
     private void deleteFiles(List<Utils.FileDetail> files) {
         System.out.println("正在删除文件...");
+        DeleteStats stats = new DeleteStats();
+        List<String> paths = new ArrayList<>(Math.min(files.size(), DELETE_BATCH_SIZE));
         for (Utils.FileDetail fd : files) {
-            deleteFileWithForce(fd.getPath());
+            paths.add(fd.getPath());
+            if (paths.size() == DELETE_BATCH_SIZE) {
+                stats.add(Utils.forceDeleteFiles(paths));
+                paths.clear();
+            }
+        }
+        if (!paths.isEmpty()) {
+            stats.add(Utils.forceDeleteFiles(paths));
         }
-        System.out.println("删除完成。");
+        System.out.println("删除完成: " + stats);
         Utils.pause();
     }
 
@@ -482,10 +764,11 @@ public class FileSearchModule implements Module {
             return;
         }
 
+        List<String> paths = new ArrayList<>(indices.size());
         for (Integer i : indices) {
-            deleteFileWithForce(files.get(i-1).getPath());
+            paths.add(files.get(i-1).getPath());
         }
-        System.out.println("选择性删除完成。");
+        System.out.println("选择性删除完成: " + Utils.forceDeleteFiles(paths));
         Utils.pause();
     }
 
@@ -515,53 +798,6 @@ public class FileSearchModule implements Module {
         return set;
     }
 
-    private void deleteFileWithForce(String path) {
-        File file = new File(path);
-        if (!file.exists()) {
-            System.out.println("文件不存在: " + path);
-            return;
-        }
-        if (file.delete()) {
-            System.out.println("已删除: " + path);
-            return;
-        }
-
-        // 若需强制删除
-        if (Utils.isLoggingEnabled()) {
-            System.out.println("无法删除: " + path + " 尝试强制删除...");
-        }
-        try {
-            Process handleP = Runtime.getRuntime().exec(new String[]{"handle.exe", "-accepteula", "-nobanner", path});
-            BufferedReader br = new BufferedReader(new InputStreamReader(handleP.getInputStream()));
-            String line;
-            List<String> pids = new ArrayList<>();
-            while ((line = br.readLine()) != null) {
-                if (line.toLowerCase().contains("pid:")) {
-                    String[] tokens = line.split("\\s+");
-                    for (String tk : tokens) {
-                        if (tk.matches("\\d+")) {
-                            pids.add(tk);
-                        }
-                    }
-                }
-            }
-
-            for (String pid : pids) {
-                Runtime.getRuntime().exec("taskkill /F /PID " + pid).waitFor();
-            }
-
-            Thread.sleep(500);
-            if (file.delete()) {
-                System.out.println("已强制删除: " + path);
-            } else {
-                System.out.println("仍无法删除: " + path);
-            }
-
-        } catch (Exception e) {
-            System.out.println("强制删除失败: " + e.getMessage());
-        }
-    }
-
     // 复用前面已定义的方法askSizeFilter、askDateFilter、askKeywords、askFileNamePattern、askMaxFileSize避免重复代码
     private Long[] askSizeFilter() {
         System.out.println("是否根据文件大小过滤？(Y=是，N=否，回车默认否)");
@@ -3,11 +3,17 @@ package org.CleanerKing.ModuleManager.Modules;
 import org.CleanerKing.ModuleManager.Module;
 import org.CleanerKing.Utils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 一键清理模块，执行常见的清理任务。
  */
 public class OneClickCleanModule implements Module {
 
+    // 与高级清理的选项 1-10 相同
+    private static final int CLEANUP_OPTION_COUNT = 10;
+
     @Override
     public String getName() {
         return "一键清理";
@@ -16,22 +22,28 @@ public class OneClickCleanModule implements Module {
     @Override
     public void execute() {
         Utils.clearScreen();
-        System.out.println("正在执行一键清理，请稍候...");
+        List<String> options = new ArrayList<>();
+        for (int i = 1; i <= CLEANUP_OPTION_COUNT; i++) {
+            options.add(String.valueOf(i));
+        }
 
+        // 先预估可释放的空间，确认后再清理；列出的清单由随后的清理直接使用
+        System.out.println("正在预估可释放空间...");
+        Utils.previewCleanup(options);
+        System.out.print("确认开始一键清理吗？(Y/N): ");
+        if (!Utils.getUserInput().trim().equalsIgnoreCase("Y")) {
+            System.out.println("已取消一键清理。");
+            Utils.logEvent("用户在预估后取消了一键清理。");
+            Utils.pause();
+            return;
+        }
+
+        System.out.println("正在执行一键清理，请稍候...");
         Utils.logEvent("用户开始一键清理任务。");
 
         try {
-            // 调用清理功能
-            Utils.deleteDirectory(Utils.USER_TEMP);
-            Utils.deleteDirectory(Utils.SYSTEM_TEMP);
-            Utils.emptyRecycleBin();
-            Utils.deleteDirectory(Utils.SOFTWARE_DISTRIBUTION);
-            Utils.deleteDirectory(Utils.PREFETCH);
-            Utils.deleteDirectory(Utils.RECENT_FILES);
-            Utils.deleteDirectory(Utils.EDGE_CACHE);
-            Utils.deleteDirectory(Utils.CHROME_CACHE);
-            Utils.deleteFirefoxCache();
-            Utils.flushDNS();
+            // 全部清理目标交给调度器，相互独立的目标并发执行
+            Utils.runCleanupTasks(Utils.createCleanupTasks(options));
 
             System.out.println("一键清理完成！");
             Utils.logEvent("一键清理任务完成。");
@@ -3,6 +3,8 @@ package org.CleanerKing.ModuleManager.Modules;
 import org.CleanerKing.ModuleManager.Module;
 import org.CleanerKing.Utils;
 
+import java.util.Arrays;
+
 /**
  * 设置模块，允许用户更改全局颜色设置和日志选项。
  */
@@ -16,15 +18,18 @@ public class SettingsModule implements Module {
     @Override
     public void execute() {
         while (true) {
-            Utils.clearScreen();
-            System.out.println("=========== 设置菜单 ===========");
-            System.out.println("[1] 更改 3D ASCII 艺术标题颜色");
-            System.out.println("[2] 更改加载动画颜色");
-            System.out.println("[3] 启用/禁用日志保存");
-            System.out.println("[4] 启用/禁用加载动画");
-            System.out.println("[5] 返回主菜单");
-            System.out.println("--------------------------------");
-            System.out.print("请选择设置选项 (1-5): ");
+            Utils.renderScreen(Arrays.asList(
+                    "=========== 设置菜单 ===========",
+                    "[1] 更改 3D ASCII 艺术标题颜色",
+                    "[2] 更改加载动画颜色",
+                    "[3] 启用/禁用日志保存",
+                    "[4] 启用/禁用加载动画",
+                    "[5] 设置文件内容扫描上限",
+                    "[6] 设置删除线程数",
+                    "[7] 启用/禁用快速清理（后台删除）",
+                    "[8] 返回主菜单",
+                    "--------------------------------",
+                    "请选择设置选项 (1-8): "));
 
             String choice = Utils.getUserInputWithEsc().trim();
 
@@ -47,12 +52,22 @@ public class SettingsModule implements Module {
                     toggleLoadingAnimation();
                     break;
                 case "5":
+                    changeContentScanLimit();
+                    break;
+                case "6":
+                    changeDeleteParallelism();
+                    break;
+                case "7":
+                    toggleTrashSwap();
+                    break;
+                case "8":
                     return;
                 default:
                     System.out.println("无效选择，请重试。");
                     Utils.pause();
                     break;
             }
+            Utils.invalidateScreen();
         }
     }
 
@@ -270,4 +285,100 @@ public class SettingsModule implements Module {
         }
         Utils.pause();
     }
+
+    /**
+     * 启用或禁用快速清理：目录先改名再在后台删除。
+     */
+    private void toggleTrashSwap() {
+        Utils.clearScreen();
+        System.out.println("当前快速清理状态: " + (Utils.isTrashSwapEnabled() ? "启用" : "禁用"));
+        System.out.println("启用后清理目录时先将其改名并立即重建空目录，旧内容在后台删除。");
+        System.out.println("[1] 启用快速清理");
+        System.out.println("[2] 禁用快速清理");
+        System.out.println("[3] 返回设置菜单");
+        System.out.print("请选择操作 (1-3, 按 ESC 返回): ");
+
+        String choice = Utils.getUserInputWithEsc().trim();
+        if (choice.equalsIgnoreCase("ESC")) {
+            Utils.logDetail("用户在启用/禁用快速清理时按下ESC键。");
+            return;
+        }
+
+        switch (choice) {
+            case "1":
+                Utils.setTrashSwapEnabled(true);
+                System.out.println("快速清理已启用。");
+                Utils.logEvent("用户启用了快速清理。");
+                break;
+            case "2":
+                Utils.setTrashSwapEnabled(false);
+                System.out.println("快速清理已禁用。");
+                Utils.logEvent("用户禁用了快速清理。");
+                break;
+            case "3":
+                return;
+            default:
+                System.out.println("无效选择，请重试。");
+        }
+        Utils.pause();
+    }
+
+    /**
+     * 设置文件搜索时每个文件内容扫描的字节上限。
+     */
+    private void changeContentScanLimit() {
+        Utils.clearScreen();
+        System.out.printf("当前文件内容扫描上限: %.2f MB%n", Utils.getContentScanMaxBytes() / (1024.0 * 1024.0));
+        System.out.print("请输入新的上限(MB，按 ESC 返回): ");
+
+        String input = Utils.getUserInputWithEsc().trim();
+        if (input.equalsIgnoreCase("ESC") || input.isEmpty()) {
+            Utils.logDetail("用户在设置文件内容扫描上限时按下ESC键。");
+            return;
+        }
+
+        try {
+            long mb = Long.parseLong(input);
+            if (mb < 1 || mb > 1024) {
+                System.out.println("上限必须在 1~1024 MB 之间。");
+            } else {
+                Utils.setContentScanMaxBytes(mb * 1024 * 1024);
+                System.out.println("文件内容扫描上限已设置为 " + mb + " MB。");
+                Utils.logEvent("用户设置文件内容扫描上限为 " + mb + " MB。");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("无效数值，请重试。");
+        }
+        Utils.pause();
+    }
+
+    /**
+     * 设置删除目录时使用的线程数。
+     */
+    private void changeDeleteParallelism() {
+        Utils.clearScreen();
+        int current = Utils.getDeleteParallelism();
+        System.out.println("当前删除线程数: " + (current > 0 ? String.valueOf(current) : "自动（" + Runtime.getRuntime().availableProcessors() + "）"));
+        System.out.print("请输入新的线程数(0=自动，1=串行，按 ESC 返回): ");
+
+        String input = Utils.getUserInputWithEsc().trim();
+        if (input.equalsIgnoreCase("ESC") || input.isEmpty()) {
+            Utils.logDetail("用户在设置删除线程数时按下ESC键。");
+            return;
+        }
+
+        try {
+            int threads = Integer.parseInt(input);
+            if (threads < 0 || threads > 64) {
+                System.out.println("线程数必须在 0~64 之间。");
+            } else {
+                Utils.setDeleteParallelism(threads);
+                System.out.println("删除线程数已设置为 " + (threads == 0 ? "自动" : String.valueOf(threads)) + "。");
+                Utils.logEvent("用户设置删除线程数为 " + threads + "。");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("无效数值，请重试。");
+        }
+        Utils.pause();
+    }
 }
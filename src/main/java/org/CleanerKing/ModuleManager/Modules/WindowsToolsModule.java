@@ -37,34 +37,34 @@ public class WindowsToolsModule implements Module {
 
             switch (toolSel) {
                 case "1":
-                    Utils.executeCommand("cleanmgr");
+                    Utils.launchCommand("cleanmgr");
                     Utils.logEvent("用户启动磁盘清理工具 (cleanmgr)。");
                     break;
                 case "2":
-                    Utils.executeCommand("cmd.exe /c start diskmgmt.msc");
+                    Utils.launchCommand("cmd.exe", "/c", "start", "", "diskmgmt.msc");
                     Utils.logEvent("用户启动磁盘管理 (diskmgmt.msc)。");
                     break;
                 case "3":
-                    Utils.executeCommand("cmd.exe /c start msconfig");
+                    Utils.launchCommand("cmd.exe", "/c", "start", "", "msconfig");
                     Utils.logEvent("用户启动系统配置 (msconfig)。");
                     break;
                 case "4":
-                    Utils.executeCommand("cmd.exe /c start msinfo32");
+                    Utils.launchCommand("cmd.exe", "/c", "start", "", "msinfo32");
                     Utils.logEvent("用户启动系统信息 (msinfo32)。");
                     break;
                 case "5":
-                    Utils.executeCommand("cmd.exe /c start dfrgui");
+                    Utils.launchCommand("cmd.exe", "/c", "start", "", "dfrgui");
                     Utils.logEvent("用户启动碎片整理 (dfrgui)。");
                     break;
                 case "6":
                     Utils.chkdskMenu();
                     break;
                 case "7":
-                    Utils.executeCommand("cmd.exe /c start taskmgr");
+                    Utils.launchCommand("cmd.exe", "/c", "start", "", "taskmgr");
                     Utils.logEvent("用户启动任务管理器 (taskmgr)。");
                     break;
                 case "8":
-                    Utils.executeCommand("cmd.exe /c start resmon");
+                    Utils.launchCommand("cmd.exe", "/c", "start", "", "resmon");
                     Utils.logEvent("用户启动资源监视器 (resmon)。");
                     break;
                 default:
@@ -1,98 +1,187 @@
 package org.CleanerKing;
 
-import java.io.*;
-import java.util.Properties;
+import org.CleanerKing.Config.SettingKey;
+import org.CleanerKing.Config.SettingsStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * Settings类，用于管理应用程序的配置设置。
+ *
+ * 各配置项以 SettingKey 定义，保存在数据目录的 config.properties 中；修改后延迟合并写回，可由多个线程同时读写。
  */
 public class Settings {
     private static final String CONFIG_FILE = "config.properties";
-    private Properties properties;
+    private static final Path DATA_DIRECTORY = locateDataDirectory();
+    // 修改后延迟写回的时间，期间的修改合并为一次写入
+    private static final long WRITE_DELAY_MILLIS = 500;
+
+    // 外观与日志
+    public static final SettingKey<String> ASCII_ART_COLOR = SettingKey.ofString("asciiArtColor", "\033[1;34m"); // 蓝色
+    public static final SettingKey<String> LOADING_ANIMATION_COLOR = SettingKey.ofString("loadingAnimationColor", "\033[1;32m"); // 绿色
+    public static final SettingKey<Boolean> LOGGING_ENABLED = SettingKey.ofBoolean("loggingEnabled", true);
+    public static final SettingKey<Boolean> SHOW_LOADING_ANIMATION = SettingKey.ofBoolean("showLoadingAnimation", true);
+
+    // 扫描与清理
+    public static final SettingKey<Long> CONTENT_SCAN_MAX_BYTES = SettingKey.ofLong("contentScanMaxBytes", 8L * 1024 * 1024, 1, Integer.MAX_VALUE); // 每个文件内容扫描的字节上限
+    public static final SettingKey<Integer> DELETE_PARALLELISM = SettingKey.ofInt("deleteParallelism", 0, 0, 64); // 删除线程数，0 表示使用处理器核数
+    public static final SettingKey<Boolean> TRASH_SWAP_ENABLED = SettingKey.ofBoolean("trashSwapEnabled", true); // 清理目录时先改名再后台删除
+    public static final SettingKey<List<String>> RECENT_DIRECTORIES = SettingKey.ofPathList("recentDirectories"); // 最近扫描的目录，最近的在前
+    public static final SettingKey<List<String>> FAVORITE_DIRECTORIES = SettingKey.ofPathList("favoriteDirectories"); // 收藏的扫描目录
 
-    // 默认设置
-    private String asciiArtColor = "\033[1;34m"; // 蓝色
-    private String loadingAnimationColor = "\033[1;32m"; // 绿色
-    private boolean loggingEnabled = true;
-    private boolean showLoadingAnimation = true;
+    // 调优参数：并发数与扫描上限，只能在配置文件中修改
+    public static final SettingKey<Integer> PROCESS_MAX_CONCURRENT = SettingKey.ofInt("processMaxConcurrent", 4, 1, 64); // 同时运行的外部命令数，重启后生效
+    public static final SettingKey<Integer> CLEANUP_MAX_CONCURRENT = SettingKey.ofInt("cleanupMaxConcurrent", 4, 1, 64); // 清理任务的总并发数
+    public static final SettingKey<Integer> CLEANUP_PER_VOLUME = SettingKey.ofInt("cleanupPerVolume", 2, 1, 64); // 同一卷上的清理并发数
+    public static final SettingKey<Integer> DIRECTORY_CACHE_CAPACITY = SettingKey.ofInt("directoryCacheCapacity", 64, 1, 4096); // 缓存的目录列表数，重启后生效
+    public static final SettingKey<Integer> RECENT_DIRECTORY_LIMIT = SettingKey.ofInt("recentDirectoryLimit", 8, 0, 100); // 保存的最近目录数
+    public static final SettingKey<Integer> SCAN_MAX_DEPTH = SettingKey.ofInt("scanMaxDepth", 5, 1, 1000); // 文件搜索的默认最大深度
+    public static final SettingKey<Integer> SCAN_MAX_FILES = SettingKey.ofInt("scanMaxFiles", 100000, 1, Integer.MAX_VALUE); // 文件搜索的默认最大文件数
+
+    private final SettingsStore store;
 
     public Settings() {
-        properties = new Properties();
-        loadSettings();
+        store = new SettingsStore(DATA_DIRECTORY.resolve(CONFIG_FILE), WRITE_DELAY_MILLIS);
+    }
+
+    /**
+     * 程序的数据目录，配置文件、日志与文件索引都保存在这里。
+     */
+    public static Path getDataDirectory() {
+        return DATA_DIRECTORY;
     }
 
     /**
-     * 加载设置从配置文件，如果配置文件不存在，则使用默认设置。
+     * 从 jar 运行时为 jar 所在目录：以管理员身份重新启动后工作目录是 System32，不能依赖工作目录。
+     * 从编译目录运行（开发时）为工作目录。
      */
-    public void loadSettings() {
-        File configFile = new File(CONFIG_FILE);
-        if (configFile.exists()) {
-            try (FileInputStream fis = new FileInputStream(configFile);
-                 InputStreamReader isr = new InputStreamReader(fis, "UTF-8")) { // 使用UTF-8编码
-                properties.load(isr);
-                asciiArtColor = properties.getProperty("asciiArtColor", asciiArtColor);
-                loadingAnimationColor = properties.getProperty("loadingAnimationColor", loadingAnimationColor);
-                loggingEnabled = Boolean.parseBoolean(properties.getProperty("loggingEnabled", String.valueOf(loggingEnabled)));
-                showLoadingAnimation = Boolean.parseBoolean(properties.getProperty("showLoadingAnimation", String.valueOf(showLoadingAnimation)));
-            } catch (IOException e) {
-                System.out.println("无法加载配置文件: " + e.getMessage());
+    private static Path locateDataDirectory() {
+        try {
+            Path location = Paths.get(Settings.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (Files.isRegularFile(location) && location.getParent() != null) {
+                return location.getParent();
             }
-        } else {
-            saveSettings(); // 如果配置文件不存在，创建一个
+        } catch (Exception ignore) {
+            // 无法确定 jar 位置时使用工作目录
         }
+        return Paths.get("").toAbsolutePath();
+    }
+
+    public <T> T get(SettingKey<T> key) {
+        return store.get(key);
+    }
+
+    /**
+     * @throws IllegalArgumentException 值不合法
+     */
+    public <T> void set(SettingKey<T> key, T value) {
+        store.set(key, value);
+    }
+
+    /**
+     * 以原值计算新值并设置，适合列表等需要先读后改的配置项。
+     */
+    public <T> T update(SettingKey<T> key, UnaryOperator<T> function) {
+        return store.update(key, function);
     }
 
     /**
-     * 保存当前设置到配置文件。
+     * 配置项改变后以当前值回调，在修改的线程中按修改顺序调用。
+     */
+    public <T> void addListener(SettingKey<T> key, Consumer<? super T> listener) {
+        store.addListener(key, listener);
+    }
+
+    /**
+     * 立即写入尚未保存的修改。
      */
     public void saveSettings() {
-        properties.setProperty("asciiArtColor", asciiArtColor);
-        properties.setProperty("loadingAnimationColor", loadingAnimationColor);
-        properties.setProperty("loggingEnabled", String.valueOf(loggingEnabled));
-        properties.setProperty("showLoadingAnimation", String.valueOf(showLoadingAnimation));
-
-        try (FileOutputStream fos = new FileOutputStream(CONFIG_FILE);
-             OutputStreamWriter osw = new OutputStreamWriter(fos, "UTF-8")) { // 使用UTF-8编码
-            properties.store(osw, "CleanerKing Configuration");
-        } catch (IOException e) {
-            System.out.println("无法保存配置文件: " + e.getMessage());
-        }
+        store.flush();
+    }
+
+    /**
+     * 保存修改并停止后台写入，退出时调用。
+     */
+    public void close() {
+        store.close();
     }
 
     // Getters and Setters
     public String getAsciiArtColor() {
-        return asciiArtColor;
+        return get(ASCII_ART_COLOR);
     }
 
     public void setAsciiArtColor(String asciiArtColor) {
-        this.asciiArtColor = asciiArtColor;
-        saveSettings();
+        set(ASCII_ART_COLOR, asciiArtColor);
     }
 
     public String getLoadingAnimationColor() {
-        return loadingAnimationColor;
+        return get(LOADING_ANIMATION_COLOR);
     }
 
     public void setLoadingAnimationColor(String loadingAnimationColor) {
-        this.loadingAnimationColor = loadingAnimationColor;
-        saveSettings();
+        set(LOADING_ANIMATION_COLOR, loadingAnimationColor);
     }
 
     public boolean isLoggingEnabled() {
-        return loggingEnabled;
+        return get(LOGGING_ENABLED);
     }
 
     public void setLoggingEnabled(boolean loggingEnabled) {
-        this.loggingEnabled = loggingEnabled;
-        saveSettings();
+        set(LOGGING_ENABLED, loggingEnabled);
     }
 
     public boolean isShowLoadingAnimation() {
-        return showLoadingAnimation;
+        return get(SHOW_LOADING_ANIMATION);
     }
 
     public void setShowLoadingAnimation(boolean showLoadingAnimation) {
-        this.showLoadingAnimation = showLoadingAnimation;
-        saveSettings();
+        set(SHOW_LOADING_ANIMATION, showLoadingAnimation);
+    }
+
+    public long getContentScanMaxBytes() {
+        return get(CONTENT_SCAN_MAX_BYTES);
+    }
+
+    public void setContentScanMaxBytes(long contentScanMaxBytes) {
+        set(CONTENT_SCAN_MAX_BYTES, contentScanMaxBytes);
+    }
+
+    public int getDeleteParallelism() {
+        return get(DELETE_PARALLELISM);
+    }
+
+    public void setDeleteParallelism(int deleteParallelism) {
+        set(DELETE_PARALLELISM, deleteParallelism);
+    }
+
+    public boolean isTrashSwapEnabled() {
+        return get(TRASH_SWAP_ENABLED);
+    }
+
+    public void setTrashSwapEnabled(boolean trashSwapEnabled) {
+        set(TRASH_SWAP_ENABLED, trashSwapEnabled);
+    }
+
+    public List<String> getRecentDirectories() {
+        return new ArrayList<>(get(RECENT_DIRECTORIES));
+    }
+
+    public void setRecentDirectories(List<String> recentDirectories) {
+        set(RECENT_DIRECTORIES, recentDirectories);
+    }
+
+    public List<String> getFavoriteDirectories() {
+        return new ArrayList<>(get(FAVORITE_DIRECTORIES));
+    }
+
+    public void setFavoriteDirectories(List<String> favoriteDirectories) {
+        set(FAVORITE_DIRECTORIES, favoriteDirectories);
     }
 }
@@ -1,23 +1,40 @@
 package org.CleanerKing;
 
-import org.jline.reader.LineReader;
-import org.jline.reader.LineReaderBuilder;
-import org.jline.reader.impl.DefaultParser;
-import org.jline.terminal.Terminal;
-import org.jline.terminal.TerminalBuilder;
+import org.CleanerKing.Cleanup.CleanupResult;
+import org.CleanerKing.Cleanup.CleanupScheduler;
+import org.CleanerKing.Cleanup.CleanupTask;
+import org.CleanerKing.Cleanup.DeletePlan;
+import org.CleanerKing.Cleanup.DeleteStats;
+import org.CleanerKing.Cleanup.ForceDeleter;
+import org.CleanerKing.Cleanup.HandleLockHolderLookup;
+import org.CleanerKing.Cleanup.ParallelDeleter;
+import org.CleanerKing.Cleanup.ReclaimEstimator;
+import org.CleanerKing.Cleanup.TrashSwap;
+import org.CleanerKing.Console.DirectoryListingCache;
+import org.CleanerKing.Console.DirectoryPicker;
+import org.CleanerKing.Console.ScreenRenderer;
+import org.CleanerKing.Console.StatusLine;
+import org.CleanerKing.Console.TerminalSession;
+import org.CleanerKing.Exec.CommandResult;
+import org.CleanerKing.Exec.ProcessRunner;
+import org.CleanerKing.FileScan.PathTable;
+import org.CleanerKing.Logging.AsyncLogger;
+import org.CleanerKing.Logging.LogRotationPolicy;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 工具类，包含常用的静态方法和常量。
  */
 public class Utils {
-    public static Scanner scanner = new Scanner(System.in, "UTF-8");
     public static final String TEMP_DIR = System.getProperty("java.io.tmpdir");
     public static final String USER_TEMP = System.getenv("TEMP");
     public static final String SYSTEM_TEMP = "C:\\Windows\\Temp";
@@ -32,14 +49,54 @@ public class Utils {
     // 实例化Settings对象
     private static final Settings settings = new Settings();
 
-    // Logging
-    private static boolean loggingEnabled = settings.isLoggingEnabled();
-    private static PrintWriter logWriter = null;
-    private static final String LOG_FILE_PATH = "cleanerking.log";
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    // Logging，随配置项的修改更新
+    private static volatile boolean loggingEnabled = settings.isLoggingEnabled();
+    private static volatile AsyncLogger logger = null;
+    private static final String LOG_FILE_PATH = Settings.getDataDirectory().resolve("cleanerking.log").toString();
+    private static final int LOG_BUFFER_ENTRIES = 16384;
+    // 单个日志文件超过 5MB 或跨天时轮转，日志与归档合计不超过 50MB
+    private static final LogRotationPolicy LOG_ROTATION = new LogRotationPolicy(5L * 1024 * 1024, true, 50L * 1024 * 1024);
+    // 退出时等待日志写完的最长时间
+    private static final long LOG_FLUSH_TIMEOUT_MILLIS = 2000;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     // Loading Animation Setting
-    private static boolean showLoadingAnimation = settings.isShowLoadingAnimation();
+    private static volatile boolean showLoadingAnimation = settings.isShowLoadingAnimation();
+
+    // 屏幕渲染与状态行：终端大小未知时的默认值，状态行每秒刷新 10 次
+    private static final int DEFAULT_SCREEN_WIDTH = 120;
+    private static final int DEFAULT_SCREEN_HEIGHT = 40;
+    private static final long STATUS_FRAME_MILLIS = 100;
+    private static final ScreenRenderer screen = new ScreenRenderer(System.out, DEFAULT_SCREEN_WIDTH, DEFAULT_SCREEN_HEIGHT);
+    private static volatile StatusLine statusLine = null;
+    private static TerminalSession terminalSession = null;
+    private static volatile StatusLine loadingStatus = null;
+
+    // 目录选择：目录列表缓存（容量见配置项），以及启动参数给出的目录
+    private static final DirectoryListingCache directoryListings = new DirectoryListingCache(settings.get(Settings.DIRECTORY_CACHE_CAPACITY));
+    private static String startupDirectory = null;
+
+    // 外部命令：默认超时；同时运行的进程数上限见配置项
+    private static final long COMMAND_TIMEOUT_MILLIS = 60_000;
+    private static final long RECYCLE_BIN_TIMEOUT_MILLIS = 5 * 60_000;
+    private static final ProcessRunner processRunner = new ProcessRunner(settings.get(Settings.PROCESS_MAX_CONCURRENT), StandardCharsets.UTF_8);
+
+    // 预估时列出的删除清单，在有效期内由随后的清理直接使用
+    private static final long RECLAIM_PLAN_MAX_AGE_MILLIS = 5 * 60 * 1000;
+    private static final ReclaimEstimator reclaimEstimator = new ReclaimEstimator(RECLAIM_PLAN_MAX_AGE_MILLIS);
+
+    // 快速清理的待删除墓碑清单
+    private static final String TRASH_PENDING_FILE = "cleanerking-trash.txt";
+    private static TrashSwap trashSwap = null;
+
+    // 强制删除：一次列出占用进程，终止后按指数退避重试
+    private static final String HANDLE_EXE = "handle.exe";
+    private static final long HANDLE_TIMEOUT_MILLIS = 2 * 60_000;
+    private static final int FORCE_DELETE_RETRIES = 5;
+    private static final long FORCE_DELETE_BACKOFF_MILLIS = 100;
+    private static final long FORCE_DELETE_MAX_BACKOFF_MILLIS = 2000;
+    // 系统进程（Idle、System）不能终止
+    private static final Set<Integer> SYSTEM_PIDS = new HashSet<>(Arrays.asList(0, 4));
 
     // Protected Directories to prevent accidental deletion
     private static final List<String> PROTECTED_DIRECTORIES = Arrays.asList(
@@ -54,14 +111,14 @@ public class Utils {
      */
     static {
         if (loggingEnabled) {
-            try {
-                logWriter = new PrintWriter(new OutputStreamWriter(new FileOutputStream(LOG_FILE_PATH, true), "UTF-8"), true);
-                logEvent("日志记录已启用。");
-            } catch (IOException e) {
-                System.out.println("无法启用日志记录: " + e.getMessage());
-                loggingEnabled = false;
-            }
+            applyLogging(true);
         }
+        // 退出时有时限地写完剩余日志，并保存尚未写回的配置
+        Runtime.getRuntime().addShutdownHook(new Thread(Utils::closeLogger, "log-shutdown"));
+        Runtime.getRuntime().addShutdownHook(new Thread(settings::close, "settings-shutdown"));
+        // 配置项修改后立即生效，无需重新读取配置文件
+        settings.addListener(Settings.LOGGING_ENABLED, Utils::applyLogging);
+        settings.addListener(Settings.SHOW_LOADING_ANIMATION, show -> showLoadingAnimation = show);
     }
 
     /**
@@ -83,24 +140,54 @@ public class Utils {
      */
     public static void enableLogging(boolean enable) {
         settings.setLoggingEnabled(enable);
+    }
+
+    /**
+     * 按日志配置项的新值打开或关闭日志文件。
+     * 无法打开时把配置项写回 false，菜单与配置文件显示的都是实际状态；
+     * 写回再次通知本方法时是关闭，不会继续递归。
+     */
+    private static void applyLogging(boolean enable) {
+        // 写回在日志锁之外进行，不与修改配置的线程交叉加锁
+        if (!openOrCloseLogger(enable)) {
+            settings.set(Settings.LOGGING_ENABLED, false);
+        }
+    }
+
+    /**
+     * @return 无法打开日志文件时返回 false
+     */
+    private static synchronized boolean openOrCloseLogger(boolean enable) {
         loggingEnabled = enable;
         if (enable) {
             try {
-                if (logWriter == null) {
-                    logWriter = new PrintWriter(new OutputStreamWriter(new FileOutputStream(LOG_FILE_PATH, true), "UTF-8"), true);
+                if (logger == null) {
+                    logger = new AsyncLogger(LOG_FILE_PATH, LOG_BUFFER_ENTRIES, LOG_ROTATION);
                 }
                 logEvent("日志记录已启用。");
             } catch (IOException e) {
                 System.out.println("无法启用日志记录: " + e.getMessage());
                 loggingEnabled = false;
+                return false;
             }
         } else {
-            if (logWriter != null) {
-                logEvent("日志记录已禁用。");
-                logWriter.close();
-                logWriter = null;
+            if (logger != null) {
+                logger.log("事件", "日志记录已禁用。");
+                closeLogger();
             }
         }
+        return true;
+    }
+
+    /**
+     * 写完剩余日志并关闭日志文件，最多等待 LOG_FLUSH_TIMEOUT_MILLIS。
+     */
+    public static void closeLogger() {
+        AsyncLogger l = logger;
+        logger = null;
+        if (l != null) {
+            l.close(LOG_FLUSH_TIMEOUT_MILLIS);
+        }
     }
 
     /**
@@ -115,7 +202,6 @@ public class Utils {
      */
     public static void setShowLoadingAnimation(boolean show) {
         settings.setShowLoadingAnimation(show);
-        showLoadingAnimation = show;
     }
 
     /**
@@ -125,14 +211,70 @@ public class Utils {
         return showLoadingAnimation;
     }
 
+    /**
+     * 获取文件内容扫描的字节上限。
+     */
+    public static long getContentScanMaxBytes() {
+        return settings.getContentScanMaxBytes();
+    }
+
+    /**
+     * 设置文件内容扫描的字节上限。
+     */
+    public static void setContentScanMaxBytes(long maxBytes) {
+        settings.setContentScanMaxBytes(maxBytes);
+    }
+
+    /**
+     * 检查是否启用快速清理（目录先改名再后台删除）。
+     */
+    public static boolean isTrashSwapEnabled() {
+        return settings.isTrashSwapEnabled();
+    }
+
+    /**
+     * 启用或禁用快速清理。
+     */
+    public static void setTrashSwapEnabled(boolean enabled) {
+        settings.setTrashSwapEnabled(enabled);
+    }
+
+    /**
+     * 获取文件搜索的默认最大深度。
+     */
+    public static int getScanMaxDepth() {
+        return settings.get(Settings.SCAN_MAX_DEPTH);
+    }
+
+    /**
+     * 获取文件搜索的默认最大文件数。
+     */
+    public static int getScanMaxFiles() {
+        return settings.get(Settings.SCAN_MAX_FILES);
+    }
+
+    /**
+     * 获取删除目录时使用的线程数，0 表示使用处理器核数。
+     */
+    public static int getDeleteParallelism() {
+        return settings.getDeleteParallelism();
+    }
+
+    /**
+     * 设置删除目录时使用的线程数。
+     */
+    public static void setDeleteParallelism(int parallelism) {
+        settings.setDeleteParallelism(parallelism);
+    }
+
     /**
      * 记录事件日志，简单描述性日志。
      */
     public static void logEvent(String event) {
-        String timestamp = sdf.format(new Date());
-        String logEntry = "[" + timestamp + "] 事件: " + event;
-        if (loggingEnabled && logWriter != null) {
-            logWriter.println(logEntry);
+        String logEntry = "[" + TIMESTAMP.format(LocalDateTime.now()) + "] 事件: " + event;
+        AsyncLogger l = logger;
+        if (loggingEnabled && l != null) {
+            l.log("事件", event);
         }
         // 同时输出到控制台
         synchronizedPrint(getAsciiArtColor() + logEntry + "\033[0m");
@@ -142,12 +284,11 @@ public class Utils {
      * 记录详细日志，包含更多技术细节。
      */
     public static void logDetail(String detail) {
-        String timestamp = sdf.format(new Date());
-        String logEntry = "[" + timestamp + "] 详细: " + detail;
-        if (loggingEnabled && logWriter != null) {
-            logWriter.println(logEntry);
+        // 只放入日志缓冲区，时间格式化与文件写入都在日志线程中完成
+        AsyncLogger l = logger;
+        if (loggingEnabled && l != null) {
+            l.log("详细", detail);
         }
-        // 可以选择是否输出到控制台
     }
 
     /**
@@ -165,19 +306,39 @@ public class Utils {
     }
 
     /**
-     * 清屏功能，兼容Windows和其他操作系统。
+     * 清屏，使用 ANSI 控制序列，不启动 cls 进程。
      */
     public static void clearScreen() {
-        try {
-            if (System.getProperty("os.name").toLowerCase().contains("windows")) {
-                new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
-            } else {
-                System.out.print("\033[H\033[2J");
-                System.out.flush();
+        screen.clear();
+    }
+
+    /**
+     * 渲染一屏菜单，只重写与上一屏不同的行。最后一行为提示行，光标停在其末尾。
+     */
+    public static void renderScreen(List<String> lines) {
+        screen.render(lines);
+    }
+
+    /**
+     * 屏幕已被其他输出改变，下一屏完整重绘。
+     */
+    public static void invalidateScreen() {
+        screen.invalidate();
+    }
+
+    /**
+     * 打开状态行：进度按固定帧率刷新，期间 synchronizedPrint 的消息合并到每帧输出。
+     * 使用完毕必须关闭。
+     */
+    public static StatusLine openStatusLine() {
+        // 关闭时与 synchronizedPrint 互斥，正在转交的消息不会丢失
+        StatusLine s = new StatusLine(System.out, screen.getWidth(), STATUS_FRAME_MILLIS, () -> {
+            synchronized (Utils.class) {
+                statusLine = null;
             }
-        } catch (Exception ex) {
-            // 忽略异常
-        }
+        });
+        statusLine = s;
+        return s;
     }
 
     /**
@@ -185,163 +346,404 @@ public class Utils {
      */
     public static void pause() {
         System.out.println("按回车键继续...");
-        scanner.nextLine();
+        getTerminalSession().readLine();
+    }
+
+    /**
+     * 检查路径是否为受保护的目录或其子目录。
+     */
+    public static boolean isProtectedPath(String path) {
+        for (String protectedDir : PROTECTED_DIRECTORIES) {
+            if (path.equalsIgnoreCase(protectedDir) || path.regionMatches(true, 0, protectedDir + "\\", 0, protectedDir.length() + 1)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * 递归删除目录及其内容。
+     * 清空目录。启用快速清理时把目录改名为墓碑并立即重建空目录，旧内容由后台线程删除；
+     * 未启用或改名失败（例如有文件被占用）时直接删除。
      *
      * @param dirPath 目录路径
+     * @return 删除统计，移入后台删除时 isDeferred() 为 true
      */
-    public static void deleteDirectory(String dirPath) {
-        File dir = new File(dirPath);
-        if (!dir.exists()) {
-            return;
+    public static DeleteStats cleanDirectory(String dirPath) {
+        if (!isTrashSwapEnabled() || isProtectedPath(dirPath) || !new File(dirPath).isDirectory()) {
+            return deleteDirectory(dirPath);
         }
+        try {
+            Path tombstone = getTrashSwap().swap(Paths.get(dirPath));
+            // 改名后不再需要预估时列出的清单
+            reclaimEstimator.take(Paths.get(dirPath));
+            logEvent("目录 " + dirPath + " 已清空，旧内容移至 " + tombstone + " 在后台删除。");
+            return DeleteStats.deferred();
+        } catch (IOException e) {
+            logDetail("无法改名目录 " + dirPath + "，改为直接删除: " + e.getMessage());
+            return deleteDirectory(dirPath);
+        }
+    }
 
-        // 检查是否为受保护的目录
-        for (String protectedDir : PROTECTED_DIRECTORIES) {
-            if (dirPath.equalsIgnoreCase(protectedDir) || dirPath.startsWith(protectedDir + "\\")) {
-                showWarning("无法删除受保护的目录或其子目录: " + dirPath);
-                logDetail("用户尝试删除受保护的目录或其子目录: " + dirPath);
-                return;
-            }
+    /**
+     * 继续删除上次退出时未删除完的墓碑目录，启动时调用。
+     */
+    public static void resumePendingPurges() {
+        int count = getTrashSwap().resumePending();
+        if (count > 0) {
+            logEvent("继续在后台删除上次未完成的 " + count + " 个目录。");
+        }
+    }
+
+    private static synchronized TrashSwap getTrashSwap() {
+        if (trashSwap == null) {
+            // 后台删除不输出到控制台，只写入日志
+            trashSwap = new TrashSwap(Paths.get(TRASH_PENDING_FILE), p -> isProtectedPath(p.toString()), new ParallelDeleter.Listener() {
+                @Override
+                public void onDeleted(Path path, boolean directory) {
+                    logDetail((directory ? "后台删除目录: " : "后台删除文件: ") + path);
+                }
+
+                @Override
+                public void onFailed(Path path, IOException e) {
+                    logDetail("后台删除失败: " + path + " 错误: " + e.getMessage());
+                }
+
+                @Override
+                public void onProtectedSkipped(Path path) {
+                    logDetail("后台删除时跳过受保护的目录: " + path);
+                }
+            });
         }
+        return trashSwap;
+    }
 
+    /**
+     * 批量强制删除文件：先逐个删除，失败的文件一次查找占用进程并终止后重试。
+     *
+     * @param paths 要删除的文件
+     * @return 删除统计
+     */
+    public static DeleteStats forceDeleteFiles(List<String> paths) {
+        List<Path> files = new ArrayList<>(paths.size());
+        for (String p : paths) {
+            files.add(Paths.get(p).toAbsolutePath());
+        }
+        Set<Integer> protectedPids = new HashSet<>(SYSTEM_PIDS);
+        // RuntimeMXBean 名称形如 "1234@host"，不终止本程序自身
+        String self = ManagementFactory.getRuntimeMXBean().getName();
         try {
-            Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            protectedPids.add(Integer.parseInt(self.substring(0, self.indexOf('@'))));
+        } catch (RuntimeException ignore) {
+        }
+        ForceDeleter deleter = new ForceDeleter(
+                new HandleLockHolderLookup(processRunner, HANDLE_EXE, HANDLE_TIMEOUT_MILLIS),
+                Utils::killProcess, protectedPids,
+                FORCE_DELETE_RETRIES, FORCE_DELETE_BACKOFF_MILLIS, FORCE_DELETE_MAX_BACKOFF_MILLIS);
+        int total = files.size();
+        AtomicLong deleted = new AtomicLong();
+        AtomicLong forcedCount = new AtomicLong();
+        try (StatusLine status = openStatusLine()) {
+            // 逐个文件的结果只更新状态行，失败与终止进程的记录才单独打印
+            status.set(() -> String.format("已删除 %d/%d 个文件，其中强制删除 %d 个", deleted.get(), total, forcedCount.get()));
+            DeleteStats stats = deleter.delete(files, new ForceDeleter.Listener() {
                 @Override
-                public FileVisitResult visitFile(Path filePath, BasicFileAttributes attrs) throws IOException {
-                    try {
-                        Files.delete(filePath);
-                        logDetail("删除文件: " + filePath.toString());
-                    } catch (IOException e) {
-                        showWarning("无法删除文件: " + filePath.toString() + " 错误: " + e.getMessage());
-                        logDetail("无法删除文件: " + filePath.toString() + " 错误: " + e.getMessage());
+                public void onDeleted(Path file, boolean forced) {
+                    deleted.incrementAndGet();
+                    if (forced) {
+                        forcedCount.incrementAndGet();
                     }
-                    return FileVisitResult.CONTINUE;
+                    logDetail((forced ? "已强制删除: " : "已删除: ") + file);
                 }
 
                 @Override
-                public FileVisitResult postVisitDirectory(Path dp, IOException exc) throws IOException {
-                    if (exc != null) {
-                        showWarning("访问目录时发生错误: " + dp.toString() + " 错误: " + exc.getMessage());
-                        logDetail("访问目录时发生错误: " + dp.toString() + " 错误: " + exc.getMessage());
-                        return FileVisitResult.CONTINUE;
-                    }
-                    try {
-                        Files.delete(dp);
-                        logDetail("删除目录: " + dp.toString());
-                    } catch (IOException e) {
-                        showWarning("无法删除目录: " + dp.toString() + " 错误: " + e.getMessage());
-                        logDetail("无法删除目录: " + dp.toString() + " 错误: " + e.getMessage());
-                    }
-                    return FileVisitResult.CONTINUE;
+                public void onMissing(Path file) {
+                    synchronizedPrint("文件不存在: " + file);
+                }
+
+                @Override
+                public void onKilled(int pid, Set<Path> lockedFiles) {
+                    synchronizedPrint("已终止进程 " + pid + "（占用 " + lockedFiles.size() + " 个文件）");
+                    logEvent("强制删除时终止进程 " + pid + "，占用文件: " + lockedFiles);
+                }
+
+                @Override
+                public void onFailed(Path file, IOException error) {
+                    synchronizedPrint("仍无法删除: " + file);
+                    logDetail("强制删除失败: " + file + " 错误: " + error.getMessage());
                 }
             });
-            logEvent("目录 " + dirPath + " 已删除。");
-        } catch (IOException e) {
-            showWarning("无法删除目录: " + dir.getAbsolutePath() + " 错误: " + e.getMessage());
-            logDetail("无法删除目录: " + dir.getAbsolutePath() + " 错误: " + e.getMessage());
+            logEvent("强制删除完成: " + stats);
+            return stats;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new DeleteStats();
+        }
+    }
+
+    private static void killProcess(int pid) throws IOException, InterruptedException {
+        CommandResult result = processRunner.run(Arrays.asList("taskkill", "/F", "/PID", String.valueOf(pid)), COMMAND_TIMEOUT_MILLIS, null);
+        if (!result.isSuccess()) {
+            throw new IOException("taskkill 退出代码: " + result.getExitCode());
         }
     }
 
     /**
-     * 清空回收站，使用PowerShell命令。
+     * 递归删除目录及其内容，使用设置中的删除线程数。
+     *
+     * @param dirPath 目录路径
+     * @return 删除统计
      */
-    public static void emptyRecycleBin() {
-        // 使用 PowerShell 命令清空回收站
-        String command = "PowerShell.exe -NoProfile -Command \"Clear-RecycleBin -Force -ErrorAction SilentlyContinue\"";
-        try {
-            Process process = Runtime.getRuntime().exec(command);
-            StreamGobbler outputGobbler = new StreamGobbler(process.getInputStream(), Utils::synchronizedPrint);
-            StreamGobbler errorGobbler = new StreamGobbler(process.getErrorStream(), Utils::synchronizedPrint);
-            new Thread(outputGobbler).start();
-            new Thread(errorGobbler).start();
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                logEvent("回收站已清空。");
+    public static DeleteStats deleteDirectory(String dirPath) {
+        return deleteDirectory(dirPath, getDeleteParallelism());
+    }
+
+    /**
+     * 递归删除目录及其内容：兄弟子目录并行删除，目录自底向上删除。
+     *
+     * @param dirPath     目录路径
+     * @param parallelism 删除线程数，1 为串行，不大于 0 时使用处理器核数
+     * @return 删除统计
+     */
+    public static DeleteStats deleteDirectory(String dirPath, int parallelism) {
+        File dir = new File(dirPath);
+        if (!dir.exists()) {
+            return new DeleteStats();
+        }
+
+        // 检查是否为受保护的目录
+        if (isProtectedPath(dirPath)) {
+            showWarning("无法删除受保护的目录或其子目录: " + dirPath);
+            logDetail("用户尝试删除受保护的目录或其子目录: " + dirPath);
+            return new DeleteStats();
+        }
+
+        ParallelDeleter deleter = newDeleter(parallelism);
+        // 刚预估过的目录直接按列出的清单删除，不再遍历
+        DeletePlan plan = reclaimEstimator.take(dir.toPath());
+        DeleteStats stats = plan != null ? deleter.execute(plan) : deleter.delete(dir.toPath());
+        logEvent("目录 " + dirPath + " 已删除" + (plan != null ? "（按预估清单）" : "") + "，" + stats + "。");
+        return stats;
+    }
+
+    private static ParallelDeleter newDeleter(int parallelism) {
+        return new ParallelDeleter(parallelism, p -> isProtectedPath(p.toString()), new ParallelDeleter.Listener() {
+            @Override
+            public void onDeleted(Path path, boolean directory) {
+                logDetail((directory ? "删除目录: " : "删除文件: ") + path);
+            }
+
+            @Override
+            public void onFailed(Path path, IOException e) {
+                showWarning("无法删除: " + path + " 错误: " + e.getMessage());
+                logDetail("无法删除: " + path + " 错误: " + e.getMessage());
+            }
+
+            @Override
+            public void onProtectedSkipped(Path path) {
+                showWarning("跳过受保护的目录: " + path);
+                logDetail("删除时跳过受保护的目录: " + path);
+            }
+        });
+    }
+
+    /**
+     * 预估清理选项可释放的空间：并行列出各选项的目录，输出每个选项的文件数与大小，不删除任何内容。
+     * 列出的清单会缓存一段时间，随后的清理直接使用。
+     *
+     * @param options 清理选项编号
+     * @return 预估可释放的总字节数
+     */
+    public static long previewCleanup(List<String> options) {
+        long start = System.nanoTime();
+        List<String> owners = new ArrayList<>();
+        List<Path> roots = new ArrayList<>();
+        for (String option : options) {
+            for (String dir : cleanupDirectories(option)) {
+                try {
+                    roots.add(Paths.get(dir));
+                    owners.add(option);
+                } catch (InvalidPathException e) {
+                    logDetail("无法预估目录: " + dir + " 错误: " + e.getMessage());
+                }
+            }
+        }
+        ParallelDeleter deleter = newDeleter(getDeleteParallelism());
+        List<DeletePlan> plans = new ArrayList<>(reclaimEstimator.estimate(deleter, roots));
+        // 回收站由 PowerShell 清空，不按计划删除，因此只列出统计、不缓存
+        if (options.contains("3")) {
+            try {
+                plans.addAll(deleter.plan(Collections.singletonList(Paths.get(RECYCLE_BIN))));
+                owners.add("3");
+            } catch (InvalidPathException e) {
+                logDetail("无法预估目录: " + RECYCLE_BIN + " 错误: " + e.getMessage());
+            }
+        }
+
+        synchronizedPrint("---------------- 预估可释放 ----------------");
+        long totalFiles = 0;
+        long totalBytes = 0;
+        for (String option : options) {
+            CleanupTask task = createCleanupTask(option);
+            if (task == null) continue;
+            long files = 0;
+            long bytes = 0;
+            boolean hasDirectories = false;
+            for (int i = 0; i < plans.size(); i++) {
+                if (owners.get(i).equals(option)) {
+                    hasDirectories = true;
+                    files += plans.get(i).getFileCount();
+                    bytes += plans.get(i).getTotalBytes();
+                }
+            }
+            if (hasDirectories) {
+                synchronizedPrint(String.format("%-16s %8d 个文件  %10.2f MB", task.getName(), files, bytes / (1024.0 * 1024.0)));
+                totalFiles += files;
+                totalBytes += bytes;
             } else {
-                showWarning("清空回收站时发生错误。");
-                logDetail("清空回收站时发生错误，退出代码: " + exitCode);
+                synchronizedPrint(String.format("%-16s %s", task.getName(), "无法预估"));
+            }
+        }
+        synchronizedPrint(String.format("合计 %d 个文件，%.2f MB（预估用时 %d 毫秒）", totalFiles, totalBytes / (1024.0 * 1024.0),
+                (System.nanoTime() - start) / 1_000_000));
+        logEvent("预估可释放 " + totalFiles + " 个文件，" + totalBytes + " 字节。");
+        return totalBytes;
+    }
+
+    /**
+     * 清理选项对应的目录，不删除目录的选项（回收站、DNS）返回空列表。
+     */
+    private static List<String> cleanupDirectories(String option) {
+        switch (option) {
+            case "1":
+                return Collections.singletonList(USER_TEMP);
+            case "2":
+                return Collections.singletonList(SYSTEM_TEMP);
+            case "4":
+                return Collections.singletonList(SOFTWARE_DISTRIBUTION);
+            case "5":
+                return Collections.singletonList(PREFETCH);
+            case "6":
+                return Collections.singletonList(RECENT_FILES);
+            case "7":
+                return Collections.singletonList(EDGE_CACHE);
+            case "8":
+                return Collections.singletonList(CHROME_CACHE);
+            case "9":
+                return firefoxCacheDirectories();
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 各 Firefox 配置文件的缓存目录。
+     */
+    private static List<String> firefoxCacheDirectories() {
+        List<String> dirs = new ArrayList<>();
+        File profilesDir = new File(FIREFOX_CACHE);
+        if (profilesDir.exists() && profilesDir.isDirectory()) {
+            File[] profiles = profilesDir.listFiles((dir, name) -> name.contains(".default"));
+            if (profiles != null) {
+                for (File profile : profiles) {
+                    dirs.add(new File(profile, "cache2\\entries").getAbsolutePath());
+                }
             }
-        } catch (IOException | InterruptedException e) {
-            showWarning("清空回收站时发生错误: " + e.getMessage());
-            logDetail("清空回收站时发生错误: " + e.getMessage());
+        }
+        return dirs;
+    }
+
+    /**
+     * 清空回收站，使用PowerShell命令。
+     */
+    public static void emptyRecycleBin() {
+        CommandResult result = executeCommand(RECYCLE_BIN_TIMEOUT_MILLIS,
+                "PowerShell.exe", "-NoProfile", "-Command", "Clear-RecycleBin -Force -ErrorAction SilentlyContinue");
+        if (result != null && result.isSuccess()) {
+            logEvent("回收站已清空。");
         }
     }
 
     /**
      * 清理Firefox浏览器缓存。
+     *
+     * @return 各配置文件缓存的删除统计之和
      */
-    public static void deleteFirefoxCache() {
+    public static DeleteStats deleteFirefoxCache() {
+        DeleteStats total = new DeleteStats();
         try {
-            File profilesDir = new File(FIREFOX_CACHE);
-            if (profilesDir.exists() && profilesDir.isDirectory()) {
-                File[] profiles = profilesDir.listFiles((dir, name) -> name.contains(".default"));
-                if (profiles != null) {
-                    for (File profile : profiles) {
-                        File cacheDir = new File(profile, "cache2\\entries");
-                        deleteDirectory(cacheDir.getAbsolutePath());
-                        synchronizedPrint("已清理Firefox缓存: " + cacheDir.getAbsolutePath());
-                        logEvent("已清理Firefox缓存: " + cacheDir.getAbsolutePath());
-                    }
-                }
+            for (String cacheDir : firefoxCacheDirectories()) {
+                total.add(deleteDirectory(cacheDir));
+                synchronizedPrint("已清理Firefox缓存: " + cacheDir);
+                logEvent("已清理Firefox缓存: " + cacheDir);
             }
         } catch (Exception e) {
             showWarning("无法清理Firefox缓存: " + e.getMessage());
             logDetail("无法清理Firefox缓存: " + e.getMessage());
         }
+        return total;
     }
 
     /**
      * 刷新DNS缓存。
      */
     public static void flushDNS() {
-        String command = "cmd.exe /c ipconfig /flushdns";
-        try {
-            Process process = Runtime.getRuntime().exec(command);
-            StreamGobbler outputGobbler = new StreamGobbler(process.getInputStream(), Utils::synchronizedPrint);
-            StreamGobbler errorGobbler = new StreamGobbler(process.getErrorStream(), Utils::synchronizedPrint);
-            new Thread(outputGobbler).start();
-            new Thread(errorGobbler).start();
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                synchronizedPrint("DNS缓存已刷新。");
-                logEvent("DNS缓存已刷新。");
-            } else {
-                showWarning("刷新DNS缓存时发生错误。");
-                logDetail("刷新DNS缓存时发生错误，退出代码: " + exitCode);
-            }
-        } catch (IOException | InterruptedException e) {
-            showWarning("刷新DNS缓存时发生错误: " + e.getMessage());
-            logDetail("刷新DNS缓存时发生错误: " + e.getMessage());
+        CommandResult result = executeCommand(COMMAND_TIMEOUT_MILLIS, "ipconfig", "/flushdns");
+        if (result != null && result.isSuccess()) {
+            synchronizedPrint("DNS缓存已刷新。");
+            logEvent("DNS缓存已刷新。");
         }
     }
 
     /**
-     * 执行外部命令。
+     * 执行外部命令并等待结束，输出逐行打印，超过 COMMAND_TIMEOUT_MILLIS 时终止。
+     *
+     * @param command 命令及参数，每个参数单独给出，不经过空格拆分
+     * @return 执行结果，无法启动时返回 null
+     */
+    public static CommandResult executeCommand(String... command) {
+        return executeCommand(COMMAND_TIMEOUT_MILLIS, command);
+    }
+
+    /**
+     * 执行外部命令并等待结束，输出逐行打印。
      *
-     * @param command 要执行的命令
+     * @param timeoutMillis 超时时间，超时后终止命令
+     * @param command       命令及参数
+     * @return 执行结果，无法启动时返回 null
      */
-    public static void executeCommand(String command) {
+    public static CommandResult executeCommand(long timeoutMillis, String... command) {
+        String commandLine = String.join(" ", command);
         try {
-            Process process = Runtime.getRuntime().exec(command);
-            StreamGobbler outputGobbler = new StreamGobbler(process.getInputStream(), Utils::synchronizedPrint);
-            StreamGobbler errorGobbler = new StreamGobbler(process.getErrorStream(), Utils::synchronizedPrint);
-            new Thread(outputGobbler).start();
-            new Thread(errorGobbler).start();
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                logEvent("执行命令: " + command);
+            CommandResult result = processRunner.run(Arrays.asList(command), timeoutMillis, Utils::synchronizedPrint);
+            if (result.isSuccess()) {
+                logEvent("执行命令: " + commandLine);
+            } else if (result.isTimedOut()) {
+                showWarning("命令执行超时，已终止: " + commandLine);
+                logDetail("命令执行超过 " + timeoutMillis + " 毫秒，已终止: " + commandLine);
             } else {
-                showWarning("执行命令时发生错误: " + command);
-                logDetail("执行命令时发生错误: " + command + "，退出代码: " + exitCode);
+                showWarning("执行命令时发生错误: " + commandLine);
+                logDetail("执行命令时发生错误: " + commandLine + "，退出代码: " + result.getExitCode());
             }
-        } catch (IOException | InterruptedException e) {
+            return result;
+        } catch (IOException e) {
             showWarning("执行命令时发生错误: " + e.getMessage());
             logDetail("执行命令时发生错误: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logDetail("执行命令被中断: " + commandLine);
         }
+        return null;
+    }
+
+    /**
+     * 启动图形工具或 start 命令打开的窗口，不等待其结束，菜单可以立即继续。
+     *
+     * @param command 命令及参数
+     */
+    public static void launchCommand(String... command) {
+        String commandLine = String.join(" ", command);
+        logEvent("启动程序: " + commandLine);
+        processRunner.launch(Arrays.asList(command));
     }
 
     /**
@@ -370,27 +772,150 @@ public class Utils {
             return;
         }
 
-        String chkdskCommand = "chkdsk " + drv;
+        List<String> chkdskOptions = new ArrayList<>();
         switch (mode) {
             case "1":
                 // 仅扫描
                 break;
             case "2":
-                chkdskCommand += " /f";
+                chkdskOptions.add("/f");
                 break;
             case "3":
-                chkdskCommand += " /f /r";
+                chkdskOptions.add("/f");
+                chkdskOptions.add("/r");
                 break;
             default:
                 showWarning("无效模式选择，默认仅扫描。");
                 logDetail("用户选择了无效的chkdsk模式: " + mode + "，默认仅扫描。");
         }
+        String chkdskCommand = "chkdsk " + drv + (chkdskOptions.isEmpty() ? "" : " " + String.join(" ", chkdskOptions));
         System.out.println("正在检查 " + drv + " ...");
-        executeCommand("cmd.exe /c start " + chkdskCommand);
+        // start 在新窗口中运行 chkdsk，不阻塞菜单
+        List<String> command = new ArrayList<>(Arrays.asList("cmd.exe", "/c", "start", "", "chkdsk", drv));
+        command.addAll(chkdskOptions);
+        launchCommand(command.toArray(new String[0]));
         logEvent("执行chkdsk命令: " + chkdskCommand);
         pause();
     }
 
+    /**
+     * 创建高级清理选项对应的清理任务。
+     *
+     * @param option 选项编号 1-10
+     * @return 清理任务，编号无效时返回 null
+     */
+    public static CleanupTask createCleanupTask(String option) {
+        switch (option) {
+            case "1":
+                return directoryCleanupTask("用户临时文件", USER_TEMP);
+            case "2":
+                return directoryCleanupTask("系统临时文件", SYSTEM_TEMP);
+            case "3":
+                return new CleanupTask("回收站", null, () -> {
+                    emptyRecycleBin();
+                    return null;
+                });
+            case "4":
+                return directoryCleanupTask("Windows更新缓存", SOFTWARE_DISTRIBUTION);
+            case "5":
+                return directoryCleanupTask("预取文件", PREFETCH);
+            case "6":
+                return directoryCleanupTask("最近打开的文件记录", RECENT_FILES);
+            case "7":
+                return directoryCleanupTask("Edge浏览器缓存", EDGE_CACHE);
+            case "8":
+                return directoryCleanupTask("Chrome浏览器缓存", CHROME_CACHE);
+            case "9":
+                return new CleanupTask("Firefox浏览器缓存", CleanupTask.volumeOf(FIREFOX_CACHE), Utils::deleteFirefoxCache);
+            case "10":
+                return new CleanupTask("DNS缓存", null, () -> {
+                    flushDNS();
+                    return null;
+                });
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 创建多个清理任务并设置先后顺序，跳过无效编号。
+     *
+     * @param options 选项编号 1-10
+     */
+    public static List<CleanupTask> createCleanupTasks(Collection<String> options) {
+        Map<String, CleanupTask> byOption = new LinkedHashMap<>();
+        for (String option : options) {
+            CleanupTask task = createCleanupTask(option);
+            if (task != null) {
+                byOption.putIfAbsent(option, task);
+            }
+        }
+        orderCleanupTasks(byOption);
+        return new ArrayList<>(byOption.values());
+    }
+
+    /**
+     * 同时选中时，回收站在用户与系统临时文件之后清空：清空回收站的外部命令不占用卷的并发名额，
+     * 但同样在系统卷上删除，排在后面不与临时目录的删除争用磁盘。
+     */
+    private static void orderCleanupTasks(Map<String, CleanupTask> byOption) {
+        CleanupTask recycleBin = byOption.get("3");
+        if (recycleBin == null) return;
+        for (String temp : Arrays.asList("1", "2")) {
+            CleanupTask t = byOption.get(temp);
+            if (t != null) {
+                recycleBin.dependsOn(t);
+            }
+        }
+    }
+
+    private static CleanupTask directoryCleanupTask(String name, String dirPath) {
+        return new CleanupTask(name, CleanupTask.volumeOf(dirPath), () -> cleanDirectory(dirPath));
+    }
+
+    /**
+     * 通过调度器并发执行清理任务，结束后输出每个目标的耗时、文件数与大小。
+     */
+    public static List<CleanupResult> runCleanupTasks(List<CleanupTask> tasks) {
+        List<CleanupResult> results;
+        long start = System.currentTimeMillis();
+        try (StatusLine status = openStatusLine()) {
+            // 清理期间各任务的消息按帧合并输出
+            status.set(() -> String.format("正在清理 %d 个项目，已用时 %d 秒...", tasks.size(), (System.currentTimeMillis() - start) / 1000));
+            results = new CleanupScheduler(settings.get(Settings.CLEANUP_MAX_CONCURRENT), settings.get(Settings.CLEANUP_PER_VOLUME)).run(tasks);
+        }
+        synchronizedPrint("---------------- 清理报告 ----------------");
+        long totalFiles = 0;
+        long totalBytes = 0;
+        for (CleanupResult r : results) {
+            DeleteStats stats = r.getStats();
+            String detail;
+            switch (r.getStatus()) {
+                case FAILED:
+                    detail = "失败: " + r.getError().getMessage();
+                    break;
+                case SKIPPED:
+                    detail = "已跳过";
+                    break;
+                default:
+                    if (stats == null) {
+                        detail = "完成";
+                    } else if (stats.isDeferred()) {
+                        detail = "已移入后台删除";
+                    } else {
+                        detail = String.format("%d 个文件，%.2f MB%s", stats.getFilesDeleted(), stats.getBytesFreed() / (1024.0 * 1024.0),
+                                stats.getFailures() > 0 ? "，" + stats.getFailures() + " 个无法删除" : "");
+                        totalFiles += stats.getFilesDeleted();
+                        totalBytes += stats.getBytesFreed();
+                    }
+            }
+            synchronizedPrint(String.format("%-16s %6d 毫秒  %s", r.getTask().getName(), r.getDurationMillis(), detail));
+            logEvent("清理 " + r.getTask().getName() + "：" + detail + "，耗时 " + r.getDurationMillis() + " 毫秒。");
+        }
+        synchronizedPrint(String.format("共删除 %d 个文件，释放 %.2f MB。", totalFiles, totalBytes / (1024.0 * 1024.0)));
+        return results;
+    }
+
     /**
      * 高级清理功能：允许用户选择具体的清理选项。
      */
@@ -416,76 +941,23 @@ public class Utils {
                 return;
             }
 
-            String[] selections = input.split(",");
-            boolean anySelected = false;
-            for (String sel : selections) {
+            // 去除重复的选项，保持输入顺序
+            Map<String, CleanupTask> selected = new LinkedHashMap<>();
+            for (String sel : input.split(",")) {
                 sel = sel.trim();
-                switch (sel) {
-                    case "1":
-                        deleteDirectory(USER_TEMP);
-                        synchronizedPrint("已清理用户临时文件。");
-                        logEvent("清理用户临时文件。");
-                        anySelected = true;
-                        break;
-                    case "2":
-                        deleteDirectory(SYSTEM_TEMP);
-                        synchronizedPrint("已清理系统临时文件。");
-                        logEvent("清理系统临时文件。");
-                        anySelected = true;
-                        break;
-                    case "3":
-                        emptyRecycleBin();
-                        synchronizedPrint("已清空回收站。");
-                        logEvent("清空回收站。");
-                        anySelected = true;
-                        break;
-                    case "4":
-                        deleteDirectory(SOFTWARE_DISTRIBUTION);
-                        synchronizedPrint("已清理Windows更新缓存。");
-                        logEvent("清理Windows更新缓存。");
-                        anySelected = true;
-                        break;
-                    case "5":
-                        deleteDirectory(PREFETCH);
-                        synchronizedPrint("已清理预取文件。");
-                        logEvent("清理预取文件。");
-                        anySelected = true;
-                        break;
-                    case "6":
-                        deleteDirectory(RECENT_FILES);
-                        synchronizedPrint("已清理最近打开的文件记录。");
-                        logEvent("清理最近打开的文件记录。");
-                        anySelected = true;
-                        break;
-                    case "7":
-                        deleteDirectory(EDGE_CACHE);
-                        synchronizedPrint("已清理Edge浏览器缓存。");
-                        logEvent("清理Edge浏览器缓存。");
-                        anySelected = true;
-                        break;
-                    case "8":
-                        deleteDirectory(CHROME_CACHE);
-                        synchronizedPrint("已清理Chrome浏览器缓存。");
-                        logEvent("清理Chrome浏览器缓存。");
-                        anySelected = true;
-                        break;
-                    case "9":
-                        deleteFirefoxCache();
-                        synchronizedPrint("已清理Firefox浏览器缓存。");
-                        logEvent("清理Firefox浏览器缓存。");
-                        anySelected = true;
-                        break;
-                    case "10":
-                        flushDNS();
-                        synchronizedPrint("已刷新DNS缓存。");
-                        logEvent("刷新DNS缓存。");
-                        anySelected = true;
-                        break;
-                    default:
-                        showWarning("无效选择: " + sel);
-                        logDetail("用户输入无效的清理选项: " + sel);
+                CleanupTask task = selected.containsKey(sel) ? null : createCleanupTask(sel);
+                if (task != null) {
+                    selected.put(sel, task);
+                } else if (!selected.containsKey(sel)) {
+                    showWarning("无效选择: " + sel);
+                    logDetail("用户输入无效的清理选项: " + sel);
                 }
             }
+            boolean anySelected = !selected.isEmpty();
+            if (anySelected) {
+                orderCleanupTasks(selected);
+                runCleanupTasks(new ArrayList<>(selected.values()));
+            }
 
             if (anySelected) {
                 System.out.println("高级清理完成！");
@@ -499,33 +971,10 @@ public class Utils {
     }
 
     /**
-     * 读取用户输入，提供统一的方法，支持ESC键。
+     * 读取用户输入，提供统一的方法，支持ESC键：单独按下 ESC 无需回车即返回 "ESC"。
      */
     public static String getUserInputWithEsc() {
-        try {
-
-            Terminal terminal = TerminalBuilder.builder()
-                    .dumb(true)
-                    .build();
-            LineReader reader = LineReaderBuilder.builder()
-                    .terminal(terminal)
-                    .parser(new DefaultParser())
-                    .build();
-
-            // 设置提示符为空，避免干扰
-            String input = reader.readLine("", null, null);
-            if (input == null) {
-                return "";
-            }
-            // 检测是否为ESC键
-            if (input.equals("\u001B")) { // ESC字符
-                return "ESC";
-            }
-            return input;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return "";
-        }
+        return getTerminalSession().readLine();
     }
 
     /**
@@ -548,28 +997,32 @@ public class Utils {
     }
 
     /**
-     * 显示加载动画，添加颜色和改进动画效果。
+     * 显示加载动画，添加颜色和改进动画效果。动画在状态行中按帧刷新，立即返回，
+     * 启动工作继续进行，完成后调用 finishLoadingAnimation()。
      */
     public static void showLoadingAnimation() {
-        if (!showLoadingAnimation) {
+        if (!showLoadingAnimation || loadingStatus != null) {
             return;
         }
         String loadingText = getLoadingAnimationColor() + "加载中" + "\033[0m"; // 使用设置的颜色
         String animation = "|/-\\";
-        int repeat = 2; // 增加循环次数
+        long start = System.currentTimeMillis();
+        loadingStatus = openStatusLine();
+        // 每帧 100 毫秒，按经过的时间选择动画字符
+        loadingStatus.set(() -> loadingText + " " + animation.charAt((int) ((System.currentTimeMillis() - start) / 100 % animation.length())));
+    }
 
-        System.out.print(loadingText);
-        for (int i = 0; i < repeat; i++) {
-            for (char c : animation.toCharArray()) {
-                System.out.print("\r" + loadingText + " " + c);
-                try {
-                    Thread.sleep(100); // 每帧间隔 100 毫秒
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }
+    /**
+     * 结束加载动画。
+     */
+    public static void finishLoadingAnimation() {
+        StatusLine s = loadingStatus;
+        if (s == null) {
+            return;
         }
-        System.out.println("\r" + getLoadingAnimationColor() + "加载完成！   \033[0m");
+        loadingStatus = null;
+        s.set(getLoadingAnimationColor() + "加载完成！" + "\033[0m");
+        s.close();
         logEvent("加载动画完成。");
     }
 
@@ -582,26 +1035,102 @@ public class Utils {
     }
 
     /**
-     * 读取用户输入，提供统一的方法
+     * 读取用户输入，提供统一的方法。与 getUserInputWithEsc() 共用同一终端会话。
      */
     public static String getUserInput() {
-        return scanner.nextLine();
+        return getTerminalSession().readLine();
+    }
+
+    /**
+     * 在终端中选择目录：可选收藏、最近目录或启动参数给出的目录，也可直接输入路径并按 Tab 补全。
+     *
+     * @param title 标题
+     * @return 选择的目录，按 ESC 时返回 null
+     */
+    public static String chooseDirectory(String title) {
+        DirectoryPicker picker = new DirectoryPicker(getTerminalSession(), directoryListings);
+        String dir = picker.pick(title, startupDirectory, settings.getRecentDirectories(), settings.getFavoriteDirectories(), Utils::addFavoriteDirectory);
+        if (dir != null) {
+            addRecentDirectory(dir);
+            logDetail("选择目录: " + dir);
+        }
+        return dir;
     }
 
     /**
-     * 文件搜索类，用于存储文件详情。
+     * 设置启动参数给出的目录，选择目录时直接回车即选择它。
+     */
+    public static void setStartupDirectory(String dir) {
+        startupDirectory = dir;
+    }
+
+    private static void addRecentDirectory(String dir) {
+        int limit = settings.get(Settings.RECENT_DIRECTORY_LIMIT);
+        settings.update(Settings.RECENT_DIRECTORIES, old -> {
+            List<String> recent = new ArrayList<>(old);
+            recent.removeIf(d -> d.equalsIgnoreCase(dir));
+            recent.add(0, dir);
+            while (recent.size() > limit) {
+                recent.remove(recent.size() - 1);
+            }
+            return recent;
+        });
+    }
+
+    private static void addFavoriteDirectory(String dir) {
+        if (settings.getFavoriteDirectories().stream().noneMatch(d -> d.equalsIgnoreCase(dir))) {
+            settings.update(Settings.FAVORITE_DIRECTORIES, old -> {
+                List<String> favorites = new ArrayList<>(old);
+                if (favorites.stream().noneMatch(d -> d.equalsIgnoreCase(dir))) {
+                    favorites.add(dir);
+                }
+                return favorites;
+            });
+            logEvent("已收藏目录: " + dir);
+        }
+    }
+
+    /**
+     * 获取全程共用的终端会话，首次调用时创建，并让屏幕渲染跟随终端大小。
+     */
+    public static synchronized TerminalSession getTerminalSession() {
+        if (terminalSession == null) {
+            try {
+                terminalSession = TerminalSession.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("无法打开终端", e);
+            }
+            terminalSession.onResize(screen::setSize);
+        }
+        return terminalSession;
+    }
+
+    /**
+     * 文件搜索类，用于存储文件详情。路径可以是完整字符串，也可以是路径表中的编号，
+     * 后者只在显示或删除时才拼接完整路径。
      */
     public static class FileDetail {
         private final String path;
+        private final PathTable table;
+        private final int pathId;
         private final long size;
 
         public FileDetail(String path, long size) {
             this.path = path;
+            this.table = null;
+            this.pathId = -1;
+            this.size = size;
+        }
+
+        public FileDetail(PathTable table, int pathId, long size) {
+            this.path = null;
+            this.table = table;
+            this.pathId = pathId;
             this.size = size;
         }
 
         public String getPath() {
-            return path;
+            return path != null ? path : table.toString(pathId);
         }
 
         public long getSize() {
@@ -609,68 +1138,34 @@ public class Utils {
         }
     }
 
-    /**
-     * 内部类用于处理流输出。
-     */
-    static class StreamGobbler implements Runnable {
-        private final InputStream inputStream;
-        private final Consumer<String> consumer;
-
-        public StreamGobbler(InputStream inputStream, Consumer<String> consumer) {
-            this.inputStream = inputStream;
-            this.consumer = consumer;
-        }
-
-        @Override
-        public void run() {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"))) { // 使用UTF-8编码
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    consumer.accept(line);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
     /**
      * 同步打印方法，避免多线程输出混乱。
      *
      * @param message 要打印的消息
      */
     public static synchronized void synchronizedPrint(String message) {
-        System.out.println(message);
-    }
-
-    /**
-     * 关闭Scanner资源。
-     */
-    public static void closeScanner() {
-        if (scanner != null) {
-            scanner.close();
+        StatusLine s = statusLine;
+        if (s != null) {
+            s.println(message);
+        } else {
+            System.out.println(message);
         }
     }
 
     /**
-     * 轮转日志文件，当日志文件超过一定大小时，创建新日志文件。
+     * 关闭终端会话，并记录输入延迟统计。
      */
-    private static void rotateLogs() {
-        final long MAX_LOG_SIZE = 5 * 1024 * 1024; // 5MB
-        File logFile = new File(LOG_FILE_PATH);
-        if (logFile.exists() && logFile.length() > MAX_LOG_SIZE) {
-            String newName = LOG_FILE_PATH + "." + System.currentTimeMillis() + ".bak";
-            File archive = new File(newName);
-            if (logFile.renameTo(archive)) {
-                try {
-                    logWriter = new PrintWriter(new OutputStreamWriter(new FileOutputStream(LOG_FILE_PATH, true), "UTF-8"), true);
-                    logEvent("日志文件已轮转，创建新的日志文件。");
-                } catch (IOException e) {
-                    System.out.println("无法创建新的日志文件: " + e.getMessage());
-                    loggingEnabled = false;
-                }
-            }
+    public static synchronized void closeTerminalSession() {
+        if (terminalSession == null) {
+            return;
         }
+        logDetail(String.format("共读取 %d 次输入，回车到返回平均 %.1f 微秒，最大 %.1f 微秒。",
+                terminalSession.getPromptCount(), terminalSession.getAverageLatencyMicros(), terminalSession.getMaxLatencyMicros()));
+        try {
+            terminalSession.close();
+        } catch (IOException ignore) {
+        }
+        terminalSession = null;
     }
 
     /**
@@ -682,11 +1177,11 @@ public class Utils {
         String os = System.getProperty("os.name").toLowerCase();
         if (os.contains("win")) {
             try {
-                Process process = Runtime.getRuntime().exec(new String[]{"net", "session"});
-                process.getOutputStream().close();
-                int exitCode = process.waitFor();
-                return (exitCode == 0);
-            } catch (IOException | InterruptedException e) {
+                return processRunner.run(Arrays.asList("net", "session"), COMMAND_TIMEOUT_MILLIS, null).isSuccess();
+            } catch (IOException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return false;
             }
         } else {
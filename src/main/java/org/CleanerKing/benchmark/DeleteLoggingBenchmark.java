@@ -0,0 +1,50 @@
+package org.CleanerKing.benchmark;
+
+import org.CleanerKing.Utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 日志开销对比：分别在关闭与开启日志时用 Utils.deleteDirectory 删除同样数量的文件，
+ * 输出每秒删除的文件数。结束后恢复原来的日志设置。
+ *
+ * 用法：DeleteLoggingBenchmark [文件数，默认 20000] [轮数，默认 3]
+ */
+public class DeleteLoggingBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        boolean original = Utils.isLoggingEnabled();
+        try {
+            for (int r = 1; r <= rounds; r++) {
+                for (boolean logging : new boolean[]{false, true}) {
+                    Utils.enableLogging(logging);
+                    Path dir = createFiles(files);
+                    long start = System.nanoTime();
+                    Utils.deleteDirectory(dir.toString());
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("第 %d 轮，日志%s：删除 %d 个文件用时 %.3f 秒，%.0f 个/秒%n",
+                            r, logging ? "开启" : "关闭", files, seconds, files / seconds);
+                }
+            }
+        } finally {
+            Utils.enableLogging(original);
+        }
+    }
+
+    private static Path createFiles(int count) throws IOException {
+        Path dir = Files.createTempDirectory("cleanerking-bench");
+        byte[] content = new byte[128];
+        for (int i = 0; i < count; i++) {
+            Path sub = dir.resolve("d" + (i / 500));
+            if (i % 500 == 0) {
+                Files.createDirectories(sub);
+            }
+            Files.write(sub.resolve("f" + i + ".tmp"), content);
+        }
+        return dir;
+    }
+}
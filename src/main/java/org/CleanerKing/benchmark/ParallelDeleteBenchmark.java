@@ -0,0 +1,98 @@
+package org.CleanerKing.benchmark;
+
+import org.CleanerKing.Cleanup.DeleteStats;
+import org.CleanerKing.Cleanup.ParallelDeleter;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 删除性能对比：在生成的缓存式目录树（两级子目录，大量小文件）上分别用
+ * Files.walkFileTree 串行删除、ParallelDeleter 单线程与多线程删除，输出每秒删除的文件数。
+ * 不经过 Utils 的日志与输出，只比较删除本身。
+ *
+ * 用法：ParallelDeleteBenchmark [文件数，默认 100000] [轮数，默认 3] [线程数，默认处理器核数]
+ */
+public class ParallelDeleteBenchmark {
+
+    private static final int FANOUT = 16;
+
+    private static final ParallelDeleter.Listener SILENT = new ParallelDeleter.Listener() {
+        @Override
+        public void onDeleted(Path path, boolean directory) {
+        }
+
+        @Override
+        public void onFailed(Path path, IOException e) {
+            System.out.println("删除失败: " + path + " " + e.getMessage());
+        }
+
+        @Override
+        public void onProtectedSkipped(Path dir) {
+        }
+    };
+
+    public static void main(String[] args) throws IOException {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        for (int r = 1; r <= rounds; r++) {
+            Path tree = createTree(files);
+            long start = System.nanoTime();
+            walkFileTreeDelete(tree);
+            report(r, "walkFileTree 串行", files, System.nanoTime() - start);
+
+            tree = createTree(files);
+            DeleteStats serial = new ParallelDeleter(1, p -> false, SILENT).delete(tree);
+            report(r, "ParallelDeleter 1 线程", serial.getFilesDeleted(), serial.getElapsedMillis() * 1_000_000);
+
+            tree = createTree(files);
+            DeleteStats parallel = new ParallelDeleter(threads, p -> false, SILENT).delete(tree);
+            report(r, "ParallelDeleter " + threads + " 线程", parallel.getFilesDeleted(), parallel.getElapsedMillis() * 1_000_000);
+        }
+    }
+
+    private static void report(int round, String name, long files, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("第 %d 轮，%s：删除 %d 个文件用时 %.3f 秒，%.0f 个/秒%n", round, name, files, seconds, files / seconds);
+    }
+
+    private static void walkFileTreeDelete(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 生成 FANOUT x FANOUT 个子目录，文件平均分布其中，模拟浏览器缓存的结构。
+     */
+    private static Path createTree(int count) throws IOException {
+        Path root = Files.createTempDirectory("cleanerking-delete-bench");
+        byte[] content = new byte[512];
+        int dirs = FANOUT * FANOUT;
+        for (int i = 0; i < count; i++) {
+            int d = i % dirs;
+            Path sub = root.resolve(Integer.toHexString(d / FANOUT)).resolve(Integer.toHexString(d % FANOUT));
+            if (i < dirs) {
+                Files.createDirectories(sub);
+            }
+            Files.write(sub.resolve("f" + i), content);
+        }
+        return root;
+    }
+}
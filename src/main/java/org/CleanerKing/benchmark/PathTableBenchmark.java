@@ -0,0 +1,67 @@
+package org.CleanerKing.benchmark;
+
+import org.CleanerKing.FileScan.PathTable;
+import org.CleanerKing.Utils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 路径表内存对比：同一批结果分别以完整路径字符串和路径表编号保存，比较每条结果占用的堆内存。
+ *
+ * 用法：PathTableBenchmark [结果数，默认 1000000]
+ */
+public class PathTableBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String base = System.getProperty("user.home");
+
+        long before = usedMemory();
+        List<Utils.FileDetail> plain = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            plain.add(new Utils.FileDetail(path(base, i).toString(), i));
+        }
+        long plainBytes = usedMemory() - before;
+        System.out.printf("完整路径字符串: %d 条，共 %.2f MB，每条 %.1f 字节%n", n, plainBytes / (1024.0 * 1024.0), (double) plainBytes / n);
+        String sample = plain.get(n / 2).getPath();
+        plain = null;
+
+        before = usedMemory();
+        PathTable table = new PathTable();
+        List<Utils.FileDetail> compact = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            compact.add(new Utils.FileDetail(table, table.add(path(base, i)), i));
+        }
+        long compactBytes = usedMemory() - before;
+        System.out.printf("路径表编号: %d 条，共 %.2f MB，每条 %.1f 字节%n", n, compactBytes / (1024.0 * 1024.0), (double) compactBytes / n);
+        System.out.printf("每条节省 %.1f 字节（%.0f%%）%n", (double) (plainBytes - compactBytes) / n, 100.0 * (plainBytes - compactBytes) / plainBytes);
+
+        if (!sample.equals(compact.get(n / 2).getPath())) {
+            throw new IllegalStateException("路径还原不一致: " + sample);
+        }
+    }
+
+    /**
+     * 模拟缓存目录下的结果：较深的公共前缀，每个目录 50 个文件。
+     */
+    private static Path path(String base, int i) {
+        return Paths.get(base, "AppData", "Local", "Vendor", "Application", "User Data", "Default", "Cache",
+                "Cache_Data", "f_" + (i / 50 / 100), "d_" + (i / 50), "entry_" + i + ".tmp");
+    }
+
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
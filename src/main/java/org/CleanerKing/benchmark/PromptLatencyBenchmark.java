@@ -0,0 +1,86 @@
+package org.CleanerKing.benchmark;
+
+import org.CleanerKing.Console.TerminalSession;
+import org.jline.reader.LineReader;
+import org.jline.reader.LineReaderBuilder;
+import org.jline.reader.impl.DefaultParser;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.impl.ExternalTerminal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 输入延迟对比：每次提示新建终端与行读取器（原 getUserInputWithEsc 的做法）与共用终端会话，
+ * 比较每次提示的平均耗时；并检查单独的 ESC 无需回车即可识别、方向键不被误判为 ESC。
+ *
+ * 输入由内存流提供，测得的是读取本身的开销，不含用户输入的时间。
+ *
+ * 用法：PromptLatencyBenchmark [提示次数，默认 2000]
+ */
+public class PromptLatencyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        // 每次新建终端
+        int perPromptRuns = Math.min(n, 200);
+        long start = System.nanoTime();
+        for (int i = 0; i < perPromptRuns; i++) {
+            Terminal terminal = terminal(new ByteArrayInputStream(("choice" + i + "\r").getBytes(StandardCharsets.UTF_8)));
+            LineReader reader = LineReaderBuilder.builder().terminal(terminal).parser(new DefaultParser()).build();
+            reader.readLine("", null, (String) null);
+            terminal.close();
+        }
+        double perPromptMicros = (System.nanoTime() - start) / 1000.0 / perPromptRuns;
+        System.out.printf("每次新建终端: %d 次提示，平均 %.1f 微秒%n", perPromptRuns, perPromptMicros);
+
+        // 共用会话，输入预先写入
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            input.append("choice").append(i).append('\r');
+        }
+        Terminal shared = terminal(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)));
+        TerminalSession session = TerminalSession.of(shared);
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            String line = session.readLine();
+            if (!line.equals("choice" + i)) {
+                throw new IllegalStateException("读取内容不一致: " + line);
+            }
+        }
+        double sharedMicros = (System.nanoTime() - start) / 1000.0 / n;
+        System.out.printf("共用终端会话: %d 次提示，平均 %.1f 微秒；回车到返回平均 %.1f 微秒，最大 %.1f 微秒%n",
+                n, sharedMicros, session.getAverageLatencyMicros(), session.getMaxLatencyMicros());
+        session.close();
+
+        // ESC 识别：单独的 ESC 在判定时间后返回，方向键序列不被当作 ESC
+        PipedOutputStream keys = new PipedOutputStream();
+        Terminal interactive = terminal(new PipedInputStream(keys));
+        TerminalSession escSession = TerminalSession.of(interactive);
+        keys.write("\033OAabc\r".getBytes(StandardCharsets.UTF_8));
+        keys.flush();
+        System.out.println("方向键后输入 abc: " + escSession.readLine());
+        start = System.nanoTime();
+        keys.write(27);
+        keys.flush();
+        String esc = escSession.readLine();
+        System.out.printf("单独 ESC: %s，无需回车，%.1f 毫秒后返回%n", esc, (System.nanoTime() - start) / 1_000_000.0);
+        escSession.close();
+    }
+
+    /**
+     * 从内存流读取按键的 xterm 终端，输出丢弃。
+     */
+    private static Terminal terminal(InputStream in) throws IOException {
+        ExternalTerminal terminal = new ExternalTerminal("benchmark", "xterm", in, new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+        terminal.setSize(new Size(120, 40));
+        return terminal;
+    }
+}
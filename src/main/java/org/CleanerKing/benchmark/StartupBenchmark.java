@@ -0,0 +1,74 @@
+package org.CleanerKing.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动时间：多次以新的 JVM 启动程序，测量从启动进程到主菜单出现在输出中的时间。
+ * 每次都是冷启动（新的 JVM），结果可在不同版本之间对比。
+ *
+ * 用法：StartupBenchmark [次数，默认 10] [主类，默认 org.CleanerKing.Client]
+ */
+public class StartupBenchmark {
+
+    // 主菜单最后一个选项所在的行，只在菜单中出现
+    private static final String MENU_MARKER = "[9] ";
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        String mainClass = args.length > 1 ? args[1] : "org.CleanerKing.Client";
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = Arrays.asList(java, "-Dfile.encoding=UTF-8", "-cp", System.getProperty("java.class.path"), mainClass);
+
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            long millis = timeToMenu(command);
+            times.add(millis);
+            System.out.printf("第 %d 次: %d 毫秒%n", i + 1, millis);
+        }
+        Collections.sort(times);
+        System.out.printf("到首个菜单: 最短 %d 毫秒，中位数 %d 毫秒，最长 %d 毫秒%n",
+                times.get(0), times.get(times.size() / 2), times.get(times.size() - 1));
+    }
+
+    private static long timeToMenu(List<String> command) throws IOException, InterruptedException {
+        File nul = new File(System.getProperty("os.name", "").startsWith("Windows") ? "NUL" : "/dev/null");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.appendTo(nul)).start();
+        try {
+            if (!waitForMarker(process.getInputStream())) {
+                throw new IllegalStateException("程序在显示菜单前退出");
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * 读取输出直到出现菜单标记；输出结束时返回 false。
+     */
+    private static boolean waitForMarker(InputStream in) throws IOException {
+        byte[] marker = MENU_MARKER.getBytes(StandardCharsets.UTF_8);
+        int matched = 0;
+        int b;
+        while ((b = in.read()) >= 0) {
+            matched = b == marker[matched] ? matched + 1 : (b == marker[0] ? 1 : 0);
+            if (matched == marker.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package org.CleanerKing.example;
+
+import org.CleanerKing.Exec.CommandResult;
+import org.CleanerKing.Exec.ProcessRunner;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+public class ProcessRunnerExample {
+    public static void main(String[] args) throws Exception {
+        boolean windows = System.getProperty("os.name", "").startsWith("Windows");
+        try (ProcessRunner runner = new ProcessRunner(2, Charset.defaultCharset())) {
+            // 捕获输出
+            CommandResult echo = runner.run(shell(windows, "echo hello"), 5000, line -> System.out.println("输出: " + line));
+            System.out.println("退出代码: " + echo.getExitCode() + "，耗时 " + echo.getDurationMillis() + " 毫秒");
+
+            // 非零退出代码
+            CommandResult fail = runner.run(shell(windows, "exit 3"), 5000, null);
+            System.out.println("exit 3 -> 成功: " + fail.isSuccess() + "，退出代码: " + fail.getExitCode());
+
+            // 超时后终止
+            String sleep = windows ? "ping -n 11 127.0.0.1 >NUL" : "sleep 10";
+            CommandResult slow = runner.run(shell(windows, sleep), 500, null);
+            System.out.println("超时: " + slow.isTimedOut() + "，耗时 " + slow.getDurationMillis() + " 毫秒");
+
+            // 同时最多运行 2 个进程，其余排队
+            String shortSleep = windows ? "ping -n 2 127.0.0.1 >NUL" : "sleep 1";
+            long start = System.nanoTime();
+            List<Future<CommandResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(runner.runAsync(shell(windows, shortSleep), 5000, null));
+            }
+            for (Future<CommandResult> f : futures) {
+                f.get();
+            }
+            System.out.println("4 个命令，并发上限 2，共耗时 " + (System.nanoTime() - start) / 1_000_000 + " 毫秒");
+
+            // 启动后立即返回
+            start = System.nanoTime();
+            Future<CommandResult> launched = runner.launch(shell(windows, shortSleep));
+            System.out.println("launch 返回耗时 " + (System.nanoTime() - start) / 1_000_000 + " 毫秒，程序结束时退出代码: " + launched.get().getExitCode());
+        }
+    }
+
+    private static List<String> shell(boolean windows, String script) {
+        return windows ? Arrays.asList("cmd.exe", "/c", script) : Arrays.asList("sh", "-c", script);
+    }
+}
@@ -0,0 +1,76 @@
+package org.CleanerKing.FileScan;
+
+import org.CleanerKing.Utils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * ResultStore 溢出到临时文件后的读取、分段排序与多路归并。
+ */
+public class ResultStoreTest {
+
+    @Test
+    public void spilledResultsReadBackInOrder() {
+        try (ResultStore store = new ResultStore(3)) {
+            for (int i = 0; i < 1000; i++) {
+                store.add(new Utils.FileDetail("C:\\数据\\file" + i + ".txt", i));
+            }
+            assertEquals(1000, store.size());
+            assertEquals(997, store.getSpilledCount());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals("C:\\数据\\file" + i + ".txt", store.get(i).getPath());
+                assertEquals(i, store.get(i).getSize());
+            }
+        }
+    }
+
+    @Test
+    public void sortMergesMultipleRuns() throws IOException {
+        // 每段 100 条，5003 条结果分为 51 段，最后一段不满
+        List<Utils.FileDetail> expected = new ArrayList<>();
+        Random random = new Random(42);
+        try (ResultStore store = new ResultStore(10, 100)) {
+            for (int i = 0; i < 5003; i++) {
+                // 取值范围小，包含大量相同大小
+                Utils.FileDetail fd = new Utils.FileDetail("/tmp/f" + i, random.nextInt(2000));
+                store.add(fd);
+                expected.add(fd);
+            }
+            store.sortBySizeDescending();
+            expected.sort(Comparator.comparingLong(Utils.FileDetail::getSize).reversed());
+
+            assertEquals(expected.size(), store.size());
+            List<String> sortedPaths = new ArrayList<>();
+            List<String> expectedPaths = new ArrayList<>();
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getSize(), store.get(i).getSize());
+                sortedPaths.add(store.get(i).getPath() + "|" + store.get(i).getSize());
+                expectedPaths.add(expected.get(i).getPath() + "|" + expected.get(i).getSize());
+            }
+            // 大小相同的结果顺序不定，比较路径与大小的集合
+            sortedPaths.sort(null);
+            expectedPaths.sort(null);
+            assertEquals(expectedPaths, sortedPaths);
+        }
+    }
+
+    @Test
+    public void sortWithinSingleRun() throws IOException {
+        try (ResultStore store = new ResultStore(0, 1 << 20)) {
+            for (int i = 0; i < 500; i++) {
+                store.add(new Utils.FileDetail("/tmp/f" + i, i));
+            }
+            store.sortBySizeDescending();
+            for (int i = 0; i < 500; i++) {
+                assertEquals(499 - i, store.get(i).getSize());
+            }
+        }
+    }
+}